@@ -0,0 +1,40 @@
+package Benchmarks;
+
+import Engine.Handler;
+
+/**
+ * The positions all benchmarks run on, so numbers of different benchmarks can be compared.
+ * Class can not be instantiated.
+ */
+public final class BenchmarkPositions {
+
+    //the names used in the @Param annotations of the benchmarks
+    public static final String START = "start";
+    public static final String MIDDLEGAME = "middlegame";   //many pieces, castlings, pins and captures (kiwipete)
+    public static final String OPEN = "open";               //open middle game with bishops and knights developed
+    public static final String PROMOTION = "promotion";     //promotions and checks
+    public static final String ENDGAME = "endgame";         //few pieces, en-passent and long rook moves
+
+    private BenchmarkPositions() {}
+
+    public static String fen(String name) {
+        switch (name) {
+            case START:
+                return "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+            case MIDDLEGAME:
+                return "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+            case OPEN:
+                return "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+            case PROMOTION:
+                return "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+            case ENDGAME:
+                return "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+            default:
+                throw new IllegalArgumentException("Unknown position " + name);
+        }
+    }
+
+    public static Handler handler(String name) {
+        return new Handler(fen(name));
+    }
+}
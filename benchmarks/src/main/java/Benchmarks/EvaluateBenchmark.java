@@ -0,0 +1,35 @@
+package Benchmarks;
+
+import Engine.Handler;
+import Players.AI.PositionEvaluate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The static evaluation of a position.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluateBenchmark {
+
+    @Param({BenchmarkPositions.START, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.OPEN,
+            BenchmarkPositions.PROMOTION, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    private Handler handler;
+
+    @Setup
+    public void setup() {
+        handler = BenchmarkPositions.handler(position);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return PositionEvaluate.evaluate(handler);
+    }
+}
@@ -0,0 +1,33 @@
+package Benchmarks;
+
+import Engine.Handler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The copy constructor of Handler, used by the players to search on a copy of the game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandlerCopyBenchmark {
+
+    @Param({BenchmarkPositions.START, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    private Handler handler;
+
+    @Setup
+    public void setup() {
+        handler = BenchmarkPositions.handler(position);
+    }
+
+    @Benchmark
+    public Handler copy() {
+        return new Handler(handler);
+    }
+}
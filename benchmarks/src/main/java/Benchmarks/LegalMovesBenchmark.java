@@ -0,0 +1,40 @@
+package Benchmarks;
+
+import Engine.Handler;
+import Engine.MoveList;
+import org.openjdk.jmh.annotations.*;
+import pieces.ChessColor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * All legal moves of the color to move (Handler.getMovesWithCheck).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LegalMovesBenchmark {
+
+    @Param({BenchmarkPositions.START, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.OPEN,
+            BenchmarkPositions.PROMOTION, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    private Handler handler;
+    private ChessColor color;
+    private final MoveList moves = new MoveList();
+
+    @Setup
+    public void setup() {
+        handler = BenchmarkPositions.handler(position);
+        color = handler.getColorToMove();
+    }
+
+    @Benchmark
+    public int getMovesWithCheck() {
+        handler.getMovesWithCheck(color, moves);
+        return moves.size();
+    }
+}
@@ -0,0 +1,56 @@
+package Benchmarks;
+
+import Engine.Handler;
+import Engine.MoveList;
+import Players.Move;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executing and undoing every legal move of a position, both through the Move objects used by the GUI
+ * (Handler.execute/undo) and through the int moves used by the search (Handler.makeMove/unmakeMove).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MakeUnmakeBenchmark {
+
+    @Param({BenchmarkPositions.START, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.OPEN,
+            BenchmarkPositions.PROMOTION, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    private Handler handler;
+    private final MoveList moves = new MoveList();
+    private Move[] moveObjects;
+
+    @Setup
+    public void setup() {
+        handler = BenchmarkPositions.handler(position);
+        handler.getMovesWithCheck(handler.getColorToMove(), moves);
+        moveObjects = new Move[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            moveObjects[i] = handler.toMove(moves.get(i));
+        }
+    }
+
+    @Benchmark
+    public void executeUndo() {
+        for (Move m : moveObjects) {
+            handler.execute(m, false);
+            handler.undo(m);
+        }
+    }
+
+    @Benchmark
+    public void makeUnmake() {
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moves.get(i);
+            handler.makeMove(m);
+            handler.unmakeMove(m);
+        }
+    }
+}
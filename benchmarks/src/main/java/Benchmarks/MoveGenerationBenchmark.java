@@ -0,0 +1,59 @@
+package Benchmarks;
+
+import Engine.Bitboards;
+import Engine.Handler;
+import Engine.MoveList;
+import org.openjdk.jmh.annotations.*;
+import pieces.ChessColor;
+import pieces.Piece;
+import pieces.PieceType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pseudo legal moves of all pieces of one type of the color to move (Piece.getMoves).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGenerationBenchmark {
+
+    @Param({BenchmarkPositions.START, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.OPEN,
+            BenchmarkPositions.PROMOTION, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    @Param({"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"})
+    public String pieceType;
+
+    private Handler handler;
+    private ChessColor color;
+    private final MoveList moves = new MoveList();
+    private int[] squares;  //the squares of the pieces of the type and color to move
+    private long targets;   //every square that is not occupied by an own piece
+
+    @Setup
+    public void setup() {
+        handler = BenchmarkPositions.handler(position);
+        color = handler.getColorToMove();
+        long bitboard = handler.getBitboard(color, PieceType.valueOf(pieceType));
+        squares = new int[Bitboards.count(bitboard)];
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = Bitboards.firstSquare(bitboard);
+            bitboard &= bitboard - 1;
+        }
+        targets = ~handler.getOccupancy(color);
+    }
+
+    @Benchmark
+    public int getMoves() {
+        moves.clear();
+        for (int square : squares) {
+            Piece p = handler.getPiece(square);
+            p.getMoves(handler, square, targets, moves);
+        }
+        return moves.size();
+    }
+}
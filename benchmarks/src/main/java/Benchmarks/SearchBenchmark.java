@@ -0,0 +1,48 @@
+package Benchmarks;
+
+import Engine.Handler;
+import Players.AI.AlphaBetaSearch;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A search of the AI to a fixed depth, so every invocation does the same work independent of the machine.
+ * The search is cleared before every invocation (transposition table, evaluation cache, pawn hash table and move
+ * ordering), so nothing learned in an earlier search is reused.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    @Param({BenchmarkPositions.START, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.OPEN,
+            BenchmarkPositions.ENDGAME})
+    public String position;
+
+    @Param({"3", "4"})
+    public int depth;
+
+    private Handler handler;
+    private AlphaBetaSearch search;
+
+    @Setup
+    public void setup() {
+        handler = BenchmarkPositions.handler(position);
+        search = new AlphaBetaSearch(4);
+        search.setLogging(false);
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() {
+        search.clear();
+    }
+
+    @Benchmark
+    public int search() {
+        return search.searchToDepth(new Handler(handler), depth);
+    }
+}
@@ -1,5 +1,9 @@
 import Engine.Engine;
-import com.sun.org.apache.xpath.internal.SourceTree;
+import Engine.Handler;
+import Engine.MoveEncoding;
+import Engine.Perft;
+import Players.AI.AlphaBetaSearch;
+import Players.AI.ParallelSpeedup;
 
 public class ChessApp {
 
@@ -24,8 +28,73 @@ public class ChessApp {
         e.exitProcedure(); //exits the program
     }
 
+    /**
+     * Search the starting position without a GUI and print the best move. Works with -Djava.awt.headless=true.
+     * --search <millis> [--hash <megabytes>] [--threads <number>] [--fork-join]
+     */
+    private static void searchHeadless(String[] args) {
+        long maxRunningTime = Long.parseLong(args[1]);
+        int hashSize = AlphaBetaSearch.DEFAULT_HASH_SIZE;
+        int threads = 1;
+        boolean forkJoin = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--hash")) {
+                hashSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--fork-join")) {
+                forkJoin = true;
+            }
+        }
+        Handler handler = new Handler();
+        AlphaBetaSearch search = new AlphaBetaSearch(hashSize);
+        search.setForkJoin(forkJoin);
+        search.setThreads(threads);
+        int bestMove = search.search(handler, maxRunningTime);
+        search.shutdown();
+        System.out.println("bestmove " + MoveEncoding.toString(bestMove));
+    }
+
+    /**
+     * Perft from the command line:
+     * --perft <depth> [--parallel] [--hash <megabytes>] [fen] prints the divide of the position (default the start),
+     * --perft-check [--parallel] [--hash <megabytes>] checks the reference positions.
+     */
+    private static void perft(String[] args) {
+        boolean parallel = false;
+        int hashMegabytes = 0;
+        StringBuilder fen = new StringBuilder();
+        int firstOption = args[0].equals("--perft") ? 2 : 1;
+        for (int i = firstOption; i < args.length; i++) {
+            if (args[i].equals("--parallel")) {
+                parallel = true;
+            } else if (args[i].equals("--hash")) {
+                hashMegabytes = Integer.parseInt(args[++i]);
+            } else {
+                fen.append(args[i]).append(' ');
+            }
+        }
+        if (args[0].equals("--perft-check")) {
+            boolean correct = Perft.checkReferencePositions(parallel, hashMegabytes, System.out);
+            System.exit(correct ? 0 : 1);
+        }
+        Handler handler = fen.length() == 0 ? new Handler() : new Handler(fen.toString());
+        Perft perft = new Perft(handler);
+        perft.setParallel(parallel);
+        perft.setHashSize(hashMegabytes);
+        perft.printDivide(Integer.parseInt(args[1]), System.out);
+    }
+
     public static void main(String[] args) {
-        if (args.length > 0 && args[0].equals("--wait-for-startup")) {
+        if (args.length > 1 && args[0].equals("--search")) {
+            searchHeadless(args);
+        } else if (args.length > 1 && args[0].equals("--speedup")) {
+            //--speedup <depth> [max threads] compares the parallel search modes
+            int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            ParallelSpeedup.report(Integer.parseInt(args[1]), maxThreads, System.out);
+        } else if (args.length > 1 && args[0].equals("--perft") || args.length > 0 && args[0].equals("--perft-check")) {
+            perft(args);
+        } else if (args.length > 0 && args[0].equals("--wait-for-startup")) {
             new ChessApp(true);
         } else {
             new ChessApp(false);
@@ -0,0 +1,134 @@
+package Engine;
+
+import pieces.ChessColor;
+
+/**
+ * Builds the tables of Attacks. This is a separate class on purpose: code that runs in the static initializer of a
+ * class is slow on some virtual machines (calls to the class itself stay in the interpreter until the class is
+ * initialized), while the methods of this class are compiled normally.
+ * Class can not be instantiated.
+ */
+final class AttackTables {
+
+    static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {-1, 1}, {1, -1}, {-1, -1}};
+    private static final int[][] KNIGHT_JUMPS = {{2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}, {1, -2}, {2, -1}};
+
+    private AttackTables() {}
+
+    /**
+     * Fill the attack sets of the knight, the king and the pawns of both colors for every square.
+     */
+    static void fillLeaperTables(long[] knightAttacks, long[] kingAttacks, long[][] pawnAttacks) {
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            int x = Bitboards.x(square);
+            int y = Bitboards.y(square);
+            for (int[] jump : KNIGHT_JUMPS) {
+                knightAttacks[square] |= bitIfOnBoard(x + jump[0], y + jump[1]);
+            }
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    if (i != 0 || j != 0) {
+                        kingAttacks[square] |= bitIfOnBoard(x + i, y + j);
+                    }
+                }
+            }
+            pawnAttacks[ChessColor.White.ordinal()][square] = bitIfOnBoard(x - 1, y + 1) | bitIfOnBoard(x + 1, y + 1);
+            pawnAttacks[ChessColor.Black.ordinal()][square] = bitIfOnBoard(x - 1, y - 1) | bitIfOnBoard(x + 1, y - 1);
+        }
+    }
+
+    /**
+     * Fill the magic attack tables of a slider for every square.
+     */
+    static void fillMagicTables(int[][] directions, long[] magics, long[] masks, int[] shifts, long[][] attacks) {
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            long mask = relevantBlockers(square, directions);
+            int bits = Bitboards.count(mask);
+            long[] table = new long[1 << bits];
+            boolean[] filled = new boolean[1 << bits];
+            long subset = 0;
+            do { //enumerate all subsets of the mask (carry-rippler)
+                int index = (int) ((subset * magics[square]) >>> (64 - bits));
+                long attack = slidingAttacks(square, subset, directions);
+                if (filled[index] && table[index] != attack) {
+                    throw new IllegalStateException("Magic number of square " + square + " is not valid");
+                }
+                filled[index] = true;
+                table[index] = attack;
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+            masks[square] = mask;
+            shifts[square] = 64 - bits;
+            attacks[square] = table;
+        }
+    }
+
+    /**
+     * Fill the squares between and the line through every two squares on the same row, column or diagonal.
+     */
+    static void fillLineTables(long[][] between, long[][] line) {
+        for (int a = 0; a < Bitboards.SQUARES; a++) {
+            for (int b = 0; b < Bitboards.SQUARES; b++) {
+                if (a == b) {
+                    continue;
+                }
+                for (int[][] directions : new int[][][]{ROOK_DIRECTIONS, BISHOP_DIRECTIONS}) {
+                    if ((slidingAttacks(a, 0, directions) & Bitboards.bit(b)) != 0) {
+                        long ends = Bitboards.bit(a) | Bitboards.bit(b);
+                        line[a][b] = (slidingAttacks(a, 0, directions) & slidingAttacks(b, 0, directions)) | ends;
+                        between[a][b] = slidingAttacks(a, Bitboards.bit(b), directions)
+                                & slidingAttacks(b, Bitboards.bit(a), directions);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The squares on which a piece would block the rays of a slider. The last square of each ray is not relevant,
+     * because there is nothing behind it to block.
+     */
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] d : directions) {
+            int x = Bitboards.x(square) + d[0];
+            int y = Bitboards.y(square) + d[1];
+            while (onBoard(x + d[0], y + d[1])) {
+                mask |= Bitboards.bit(Bitboards.square(x, y));
+                x += d[0];
+                y += d[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Walks the rays square by square.
+     */
+    private static long slidingAttacks(int square, long occupancy, int[][] directions) {
+        long attacks = 0;
+        for (int[] d : directions) {
+            int x = Bitboards.x(square) + d[0];
+            int y = Bitboards.y(square) + d[1];
+            while (onBoard(x, y)) {
+                long bit = Bitboards.bit(Bitboards.square(x, y));
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break; //one can't move behind another piece
+                }
+                x += d[0];
+                y += d[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static long bitIfOnBoard(int x, int y) {
+        return onBoard(x, y) ? Bitboards.bit(Bitboards.square(x, y)) : 0;
+    }
+
+    private static boolean onBoard(int x, int y) {
+        return x >= 1 && x <= Bitboards.CELL_AMOUNT && y >= 1 && y <= Bitboards.CELL_AMOUNT;
+    }
+}
@@ -0,0 +1,132 @@
+package Engine;
+
+import pieces.ChessColor;
+
+/**
+ * Precomputed attack tables. Knights, kings and pawns have one fixed attack set per square. The sliding pieces use magic bitboards: the relevant blockers of a square are
+ * multiplied by a magic number, and the top bits of the product index a table that holds the full attack set for that
+ * blocker configuration. The magic numbers below were found with a random search for sparse numbers that map every
+ * blocker configuration without collisions. The tables are filled by AttackTables once when this class is loaded.
+ * Class can not be instantiated.
+ */
+public final class Attacks {
+
+    private static final long[] KNIGHT_ATTACKS = new long[Bitboards.SQUARES];
+    private static final long[] KING_ATTACKS = new long[Bitboards.SQUARES];
+    //indexed by the ordinal of the color of the pawn first
+    private static final long[][] PAWN_ATTACKS = new long[2][Bitboards.SQUARES];
+
+    //for two squares on the same row, column or diagonal: the squares strictly between them, and the whole line
+    //through them. Both are 0 for squares that are not on one line.
+    private static final long[][] BETWEEN = new long[Bitboards.SQUARES][Bitboards.SQUARES];
+    private static final long[][] LINE = new long[Bitboards.SQUARES][Bitboards.SQUARES];
+
+    private static final long[] ROOK_MAGICS = {
+            0x0080002080400012L, 0x0880200010804004L, 0x0880088010002000L, 0x1100090004201000L,
+            0x0280060400803800L, 0x0200020001080410L, 0x0280008002000100L, 0x1C80044029000180L,
+            0x3000800488244000L, 0x2082802000814000L, 0x0452004200201080L, 0x6520800800801000L,
+            0x00AA000410482201L, 0x0006001004080201L, 0x0011002200010024L, 0x0C10800100004080L,
+            0x2021A48004401080L, 0x1E10004000200041L, 0x4200820040201200L, 0xA0220A0040102200L,
+            0x0000828004004800L, 0x0004008004800200L, 0x2010040030022108L, 0x4800C20000440081L,
+            0x0000209080004000L, 0x0010004840002010L, 0x0800110100402004L, 0x0200080080801000L,
+            0x3004000480480080L, 0x4000020080040080L, 0x1002100400489506L, 0x490400A2000AC104L,
+            0x0280002000404000L, 0x0000422001401004L, 0x0000809001802004L, 0x6001800801801000L,
+            0x4084008008080040L, 0x1022000400808002L, 0x0202000802000401L, 0x0008410042000084L,
+            0x0840400080218000L, 0x0800500020004002L, 0x1214200102150040L, 0xE040081022020040L,
+            0x0484008008008004L, 0x0004020004008080L, 0x4000020001008080L, 0x0009210080420014L,
+            0x2080002000400440L, 0x0100400020008080L, 0x0010080020040020L, 0x1040800800100080L,
+            0x0C48000891000500L, 0x4004010040020040L, 0x3900880110020400L, 0x0004210040A40200L,
+            0x0040201900800041L, 0x1001002200801042L, 0x0084084020010011L, 0x2405000408201001L,
+            0x0002002004C81102L, 0x00A2001048048122L, 0x0010081204895004L, 0x0042008444240502L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x10400C4104210110L, 0x0004900202002000L, 0x2C1000A88100000DL, 0x00082A022010404BL,
+            0x0004042042080000L, 0x002A0242200000A0L, 0xC020821010040410L, 0x2009002609044010L,
+            0x1000100E18485080L, 0x2022104484809201L, 0x8022210119020501L, 0x6044840400830808L,
+            0x0000042420000005L, 0x0848411022100000L, 0x0A01040404C42400L, 0x1000064400C41003L,
+            0x621000081001482AL, 0x0904200850009600L, 0x9210081101020090L, 0x0008102082004003L,
+            0x2004000201210206L, 0x4302000022102222L, 0x1814000100884480L, 0x0002000042020184L,
+            0x5004048140100400L, 0x2C41100004240800L, 0x2200404818008108L, 0xA608080290820002L,
+            0x0899010040444000L, 0x1030052013028800L, 0x20411042A4040408L, 0x2003020004CD5401L,
+            0x0002202201040800L, 0x0004040200210208L, 0x1202402080101502L, 0x8410020082080080L,
+            0x0040024200010108L, 0x2186040C40080808L, 0x010240C300240410L, 0x0080840100008880L,
+            0x1C04841040242880L, 0x0021210120081001L, 0x4104220030001200L, 0x148409201101E800L,
+            0x0000080104000043L, 0x002000810C400200L, 0x0808880800880041L, 0x0108210112061022L,
+            0x4005211010440806L, 0x0001250150104028L, 0x0425029404980022L, 0x0300000041108088L,
+            0x3033054002920190L, 0x84010811100C8921L, 0x0010200234104002L, 0x00200204010034C0L,
+            0x0001008041284000L, 0x0000404100A82002L, 0x0180000042009000L, 0xA000030540841C10L,
+            0x1800004210820200L, 0x8814234002840104L, 0x0008040842440402L, 0x8211102080888200L
+    };
+
+    private static final long[] ROOK_MASKS = new long[Bitboards.SQUARES];
+    private static final int[] ROOK_SHIFTS = new int[Bitboards.SQUARES];
+    private static final long[][] ROOK_ATTACKS = new long[Bitboards.SQUARES][];
+
+    private static final long[] BISHOP_MASKS = new long[Bitboards.SQUARES];
+    private static final int[] BISHOP_SHIFTS = new int[Bitboards.SQUARES];
+    private static final long[][] BISHOP_ATTACKS = new long[Bitboards.SQUARES][];
+
+    static {
+        AttackTables.fillLeaperTables(KNIGHT_ATTACKS, KING_ATTACKS, PAWN_ATTACKS);
+        AttackTables.fillMagicTables(AttackTables.ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS,
+                ROOK_ATTACKS);
+        AttackTables.fillMagicTables(AttackTables.BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS,
+                BISHOP_ATTACKS);
+        AttackTables.fillLineTables(BETWEEN, LINE);
+    }
+
+    private Attacks() {}
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * The squares a pawn of the given color on the given square can capture on.
+     */
+    public static long pawnAttacks(ChessColor c, int square) {
+        return PAWN_ATTACKS[c.ordinal()][square];
+    }
+
+    /**
+     * The squares strictly between two squares on the same row, column or diagonal, 0 otherwise.
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * The full row, column or diagonal through two squares, 0 if they are not on one line.
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * All squares a rook on the given square attacks, given the occupied squares. Squares with a piece on it are
+     * included, regardless of the color of that piece.
+     */
+    public static long rookAttacks(int square, long occupancy) {
+        int index = (int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[square][index];
+    }
+
+    /**
+     * All squares a bishop on the given square attacks, given the occupied squares.
+     */
+    public static long bishopAttacks(int square, long occupancy) {
+        int index = (int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[square][index];
+    }
+
+    /**
+     * All squares a queen on the given square attacks, given the occupied squares.
+     */
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+}
@@ -0,0 +1,69 @@
+package Engine;
+
+import pieces.ChessColor;
+import pieces.PieceType;
+
+/**
+ * Helper methods for working with bitboards. A bitboard is a long in which every bit stands for one square.
+ * Square 0 is (1,1) (a1), square 7 is (8,1) (h1) and square 63 is (8,8) (h8).
+ * Class can not be instantiated.
+ */
+public final class Bitboards {
+
+    public static final int CELL_AMOUNT = 8;
+    public static final int SQUARES = 64;
+    public static final int PIECE_TYPES = 6;
+    public static final long FILE_A = 0x0101010101010101L; //all squares of the a-file
+
+    private Bitboards() {}
+
+    /**
+     * Convert a position from 1 to 8 on both axis to a square index from 0 to 63
+     */
+    public static int square(int x, int y) {
+        return (y - 1) * CELL_AMOUNT + (x - 1);
+    }
+
+    /**
+     * The x coordinate (1 to 8) of a square
+     */
+    public static int x(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * The y coordinate (1 to 8) of a square
+     */
+    public static int y(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * All squares of the file (column) of a square
+     */
+    public static long file(int square) {
+        return FILE_A << (square & 7);
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * The index of a piece kind in a bitboard array of all twelve piece kinds.
+     */
+    public static int index(ChessColor c, PieceType type) {
+        return c.ordinal() * PIECE_TYPES + type.ordinal();
+    }
+
+    /**
+     * The square of the lowest set bit. The bitboard may not be empty.
+     */
+    public static int firstSquare(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    public static int count(long bitboard) {
+        return Long.bitCount(bitboard);
+    }
+}
@@ -17,7 +17,7 @@ import java.util.Set;
 
 public class Engine implements Runnable {
 
-    public static final int CELL_AMOUNT = 8;
+    public static final int CELL_AMOUNT = Bitboards.CELL_AMOUNT;
 
     private JFrame frame;
     private ChessCanvas canvas;
@@ -34,7 +34,7 @@ public class Engine implements Runnable {
 
     public Engine() {
 
-        handler = new Handler(this);
+        handler = new Handler();
 
         frame = new JFrame("Chess");
         frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
@@ -48,13 +48,17 @@ public class Engine implements Runnable {
         canvas = new ChessCanvas(handler);
         canvas.setCellWidth(standardCellWidth);
         canvas.setDoubleBuffered(true);
+        handler.setBoardChangedListener(() -> {
+            canvas.requestBoardRepaint();
+            canvas.repaint();
+        });
         canvas.addMouseMotionListener(new MouseAdapter() {
             @Override
             public void mouseMoved(MouseEvent e) {
                 super.mouseMoved(e);
                 int x = e.getX();
                 int y = e.getY();
-                canvas.setMousePointer(new ChessPosition((double)x,  (double)y, canvas));
+                canvas.setMousePointer(ChessCanvas.getPositionAt(x, y));
                 canvas.setMousePosition(new Point(e.getX(), e.getY()));
             }
         });
@@ -75,6 +79,7 @@ public class Engine implements Runnable {
             public void keyPressed(KeyEvent e) {
                 super.keyPressed(e);
                 if (e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+                    stopPondering(); //the pondered position will not come anymore
                     handler.undoLastMove();
                     canvas.requestBoardRepaint();
                 }
@@ -132,6 +137,7 @@ public class Engine implements Runnable {
      */
     private void stop() {
         hasToStop = true;
+        stopPondering();
         try {
             t.join();
             playerThread.join();
@@ -140,9 +146,19 @@ public class Engine implements Runnable {
         }
     }
 
+    /**
+     * Stop the players that think on the time of the opponent.
+     */
+    private void stopPondering() {
+        whitePlayer.stopPondering();
+        blackPlayer.stopPondering();
+    }
+
     private void initializeGame() {
         whitePlayer = new HumanPlayer(ChessColor.White, this);
-        blackPlayer = new AlphaBetaPlayer(ChessColor.Black, this);
+        AlphaBetaPlayer ai = new AlphaBetaPlayer(ChessColor.Black, this);
+        ai.setPondering(true); //the human does not need the processor
+        blackPlayer = ai;
         canvas.requestBoardRepaint();//to start with a painted board.
         start();
     }
@@ -186,14 +202,17 @@ public class Engine implements Runnable {
 
 
                 if (handler.whiteMated()) {
+                    stopPondering();
                     JOptionPane.showMessageDialog(getFrame(), "White lost");
                     return;
                 }
                 if (handler.blackMated()) {
+                    stopPondering();
                     JOptionPane.showMessageDialog(getFrame(), "Black lost");
                     return;
                 }
                 if (isDraw()) {
+                    stopPondering();
                     JOptionPane.showMessageDialog(getFrame(), "Draw");
                     return;
                 }
@@ -243,7 +262,9 @@ public class Engine implements Runnable {
         if (handler.fiftyMoves()) {
             return true;
         }
-        //TODO: include threefold repetition.
+        if (handler.isThreefoldRepetition()) {
+            return true;
+        }
         return false;
     }
 }
@@ -1,13 +1,10 @@
 package Engine;
 
-import GUI.ChessCanvas;
 import Players.Castling;
 import Players.Move;
 import Players.PawnPromotion;
 import pieces.*;
-import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
-import java.awt.*;
 import java.util.*;
 
 /**
@@ -15,102 +12,331 @@ import java.util.*;
  */
 public class Handler implements Cloneable {
     //needs to be volatile, because both the game loop and window updates can access at the same time.
-    //This array contains all the pieces. It's ordering is from 1 to 8 on the x axis and 1 to 8 on the y axis, viewed
-    //from white's perspective. (1,1) would be the white rook in the starting position
-    volatile private Piece[][] pieces =  new Piece[Engine.CELL_AMOUNT+1][Engine.CELL_AMOUNT+1];
+    //This array contains all the pieces, indexed by square (see Bitboards). The squares go from 1 to 8 on the x axis
+    //and 1 to 8 on the y axis, viewed from white's perspective. (1,1) would be the white rook in the starting position
+    //and is square 0. Pieces are shared between handlers (see Piece.get), so copying the array copies the position.
+    volatile private Piece[] pieces = new Piece[Bitboards.SQUARES];
+    //The same position as bitboards, kept in sync with the pieces array by put and clear. There is one bitboard for
+    //every piece kind (see Bitboards.index) and one occupancy bitboard per color (indexed by the ordinal of the color).
+    private long[] bitboards = new long[2 * Bitboards.PIECE_TYPES];
+    private long[] colorOccupancy = new long[2];
+    private long occupancy;
+    //The squares of the pieces of each color (indexed by the ordinal of the color), in no particular order, and the
+    //index in that list of the piece on every square. A side never has more than 16 pieces.
+    private static final int MAX_PIECES = 16;
+    private int[][] pieceSquares = new int[2][MAX_PIECES];
+    private int[] pieceCounts = new int[2];
+    private int[] pieceListIndex = new int[Bitboards.SQUARES];
+    private int[] kingSquares = {-1, -1}; //-1 if there is no king of that color
     private boolean whiteTurn = true;
 
     int amountOfReversableMoves = 0; //to keep track of the fifty move rule
 
-    //Whether or not castlings are possible (only based on movement of king and rook)
-    private boolean[] castlingsPossible = {true, true, true, true};
+    //Whether or not castlings are possible (only based on movement of king and rook), one bit per castling
+    public static final int WHITE_SHORT_CASTLING = 1;
+    public static final int WHITE_LONG_CASTLING = 2;
+    public static final int BLACK_SHORT_CASTLING = 4;
+    public static final int BLACK_LONG_CASTLING = 8;
+    private int castlingsPossible = WHITE_SHORT_CASTLING | WHITE_LONG_CASTLING | BLACK_SHORT_CASTLING | BLACK_LONG_CASTLING;
+    //the castlings that are still possible after a piece moves from or to a square. A king or rook that moves, or a
+    //rook that is captured, removes the corresponding castlings.
+    private static final int[] CASTLING_MASKS = new int[Bitboards.SQUARES];
+    static {
+        Arrays.fill(CASTLING_MASKS, 15);
+        CASTLING_MASKS[Bitboards.square(5, 1)] = ~(WHITE_SHORT_CASTLING | WHITE_LONG_CASTLING);
+        CASTLING_MASKS[Bitboards.square(8, 1)] = ~WHITE_SHORT_CASTLING;
+        CASTLING_MASKS[Bitboards.square(1, 1)] = ~WHITE_LONG_CASTLING;
+        CASTLING_MASKS[Bitboards.square(5, 8)] = ~(BLACK_SHORT_CASTLING | BLACK_LONG_CASTLING);
+        CASTLING_MASKS[Bitboards.square(8, 8)] = ~BLACK_SHORT_CASTLING;
+        CASTLING_MASKS[Bitboards.square(1, 8)] = ~BLACK_LONG_CASTLING;
+    }
+
+    private static final long LAST_ROWS = 0xFF000000000000FFL; //the rows where pawns promote
+
+    //the square a pawn passed with a double step in the last move, -1 if there is none. Used for en-passent.
+    private int enPassantSquare = -1;
+
+    //The Zobrist hash of the position (see Zobrist), updated by every change to the position. When assertions are
+    //enabled (-ea), makeMove and unmakeMove check it against a hash computed from scratch.
+    private long hash;
+
+    //The hash of only the pawns, for the pawn hash table of the evaluation.
+    private long pawnHash;
+
+    //The sums of the piece square values of all pieces (see PieceSquareTables) and the phase, updated like the hash.
+    //They are the material and position score of the evaluation, so that does not have to look at every piece.
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
+
+    //Everything makeMove changes that unmakeMove can not derive from the move itself, one entry per executed move.
+    private int historySize = 0;
+    private Piece[] capturedHistory = new Piece[64];
+    private Piece[] movedHistory = new Piece[64];   //the moving piece, needed to put back a promoted pawn
+    private int[] castlingHistory = new int[64];
+    private int[] enPassantHistory = new int[64];
+    private int[] reversableMovesHistory = new int[64];
+    private long[] hashHistory = new long[64];
+
+    private final MoveList legalScratch = new MoveList(); //used to find out if there is a legal move
+
+    private Move lastMove; //the last move executed through execute(Move). Used to draw it and to undo it.
+    private Runnable boardChangedListener; //called after execute when a redraw is required, set by the GUI if there is one
 
-    private ChessCanvas canvas;
-    private Engine e;
-    private Move lastMove; //used for en-passent
-
-    public Handler(Engine e) {
-        this.e = e;
-        canvas = e.getCanvas();
+    /**
+     * A handler with the starting position. It does not need a GUI, so it can also be used headless.
+     */
+    public Handler() {
         initialize();
     }
 
+    /**
+     * A handler with the position of a FEN string, like
+     * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1". Used for perft and benchmarks.
+     */
+    public Handler(String fen) {
+        setPosition(fen);
+    }
+
     /**
      * A copy constructor.
      */
     public Handler(Handler h) {
-        this.e = h.e;
-        this.canvas = h.canvas;
-        this.pieces = new Piece[Engine.CELL_AMOUNT+1][Engine.CELL_AMOUNT+1];
-        for (int x = 1; x < this.pieces.length; x++) {
-            for (int y = 1; y < this.pieces.length; y++) {
-                if (h.pieces[x][y] != null) {
-                    this.pieces[x][y] = h.pieces[x][y].clone(this);
-                }
-            }
-        }
+        this.pieces = h.pieces.clone();
+        this.bitboards = h.bitboards.clone();
+        this.colorOccupancy = h.colorOccupancy.clone();
+        this.occupancy = h.occupancy;
+        this.pieceSquares = new int[][]{h.pieceSquares[0].clone(), h.pieceSquares[1].clone()};
+        this.pieceCounts = h.pieceCounts.clone();
+        this.pieceListIndex = h.pieceListIndex.clone();
+        this.kingSquares = h.kingSquares.clone();
         this.whiteTurn = h.whiteTurn;
-        this.castlingsPossible = h.castlingsPossible.clone();
+        this.castlingsPossible = h.castlingsPossible;
+        this.enPassantSquare = h.enPassantSquare;
         this.lastMove = h.lastMove; //not clone, so that all handlers share the same set of moves that are done
         this.amountOfReversableMoves = h.amountOfReversableMoves;
+        this.historySize = h.historySize;
+        this.capturedHistory = h.capturedHistory.clone();
+        this.movedHistory = h.movedHistory.clone();
+        this.castlingHistory = h.castlingHistory.clone();
+        this.enPassantHistory = h.enPassantHistory.clone();
+        this.reversableMovesHistory = h.reversableMovesHistory.clone();
+        this.hash = h.hash;
+        this.pawnHash = h.pawnHash;
+        this.middlegameScore = h.middlegameScore;
+        this.endgameScore = h.endgameScore;
+        this.phase = h.phase;
+        this.hashHistory = h.hashHistory.clone();
     }
 
     /**
      * Initializes the game. To be called on every game start.
      */
     public synchronized void initialize() {
-        pieces = new Piece[Engine.CELL_AMOUNT+1][Engine.CELL_AMOUNT+1];
-        addPiece(new Rook(ChessColor.White, e,this), new ChessPosition(1,1, canvas));
-        addPiece(new Rook( ChessColor.White, e,this), new ChessPosition(8, 1, canvas));
-        addPiece(new Knight( ChessColor.White, e,this), new ChessPosition(2, 1, canvas));
-        addPiece(new Knight( ChessColor.White, e,this), new ChessPosition(7, 1, canvas));
-        addPiece(new Bishop( ChessColor.White, e,this), new ChessPosition(3, 1, canvas));
-        addPiece(new Bishop( ChessColor.White, e,this), new ChessPosition(6, 1, canvas));
-        addPiece(new King( ChessColor.White, e,this), new ChessPosition(5, 1, canvas));
-        addPiece(new Queen( ChessColor.White, e,this), new ChessPosition(4, 1, canvas));
+        clearBoard();
+        PieceType[] backRow = {PieceType.Rook, PieceType.Knight, PieceType.Bishop, PieceType.Queen,
+                PieceType.King, PieceType.Bishop, PieceType.Knight, PieceType.Rook};
         for (int i = 1; i <= 8; i++) {
-            addPiece(new Pawn( ChessColor.White, e,this), new ChessPosition(i, 2, canvas));
-        }
-        addPiece(new Rook(ChessColor.Black, e,this), new ChessPosition(1,8, canvas));
-        addPiece(new Rook( ChessColor.Black, e, this), new ChessPosition(8, 8, canvas));
-        addPiece(new Knight( ChessColor.Black, e,this), new ChessPosition(2, 8, canvas));
-        addPiece(new Knight( ChessColor.Black, e,this), new ChessPosition(7, 8, canvas));
-        addPiece(new Bishop( ChessColor.Black, e,this), new ChessPosition(3, 8, canvas));
-        addPiece(new Bishop( ChessColor.Black, e,this), new ChessPosition(6, 8, canvas));
-        addPiece(new King( ChessColor.Black, e,this), new ChessPosition(5, 8, canvas));
-        addPiece(new Queen( ChessColor.Black, e,this), new ChessPosition(4, 8, canvas));
-        for (int i = 1; i <= 8; i++) {
-            addPiece(new Pawn( ChessColor.Black, e,this), new ChessPosition(i, 7, canvas));
+            addPiece(Piece.get(backRow[i - 1], ChessColor.White), ChessPosition.get(i, 1));
+            addPiece(Piece.get(PieceType.Pawn, ChessColor.White), ChessPosition.get(i, 2));
+            addPiece(Piece.get(PieceType.Pawn, ChessColor.Black), ChessPosition.get(i, 7));
+            addPiece(Piece.get(backRow[i - 1], ChessColor.Black), ChessPosition.get(i, 8));
         }
         lastMove = null;
-        castlingsPossible = new boolean[]{true, true, true, true};
+        castlingsPossible = WHITE_SHORT_CASTLING | WHITE_LONG_CASTLING | BLACK_SHORT_CASTLING | BLACK_LONG_CASTLING;
+        enPassantSquare = -1;
         whiteTurn = true;
         amountOfReversableMoves = 0;
+        historySize = 0;
+        hash = Zobrist.hash(this);
+    }
+
+    /**
+     * Set up the position of a FEN string. The move number is ignored.
+     * @throws IllegalArgumentException if the string is not a valid FEN
+     */
+    public synchronized void setPosition(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Not a valid FEN: " + fen);
+        }
+        clearBoard();
+        int x = 1;
+        int y = Bitboards.CELL_AMOUNT;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                y--;
+                x = 1;
+            } else if (Character.isDigit(c)) {
+                x += c - '0';
+            } else {
+                int type = "pnbrqk".indexOf(Character.toLowerCase(c));
+                if (type == -1 || !ChessPosition.isOnBoard(x, y)) {
+                    throw new IllegalArgumentException("Not a valid FEN: " + fen);
+                }
+                ChessColor color = Character.isUpperCase(c) ? ChessColor.White : ChessColor.Black;
+                if (pieceCounts[color.ordinal()] == MAX_PIECES) { //the piece lists have no room for more
+                    throw new IllegalArgumentException("More than " + MAX_PIECES + " " + color + " pieces: " + fen);
+                }
+                put(Bitboards.square(x, y), Piece.get(PieceType.values()[type], color));
+                x++;
+            }
+        }
+        if (kingSquares[0] == -1 || kingSquares[1] == -1) {
+            throw new IllegalArgumentException("Both sides need a king: " + fen);
+        }
+        whiteTurn = fields[1].equals("w");
+        castlingsPossible = 0;
+        if (fields[2].contains("K")) castlingsPossible |= WHITE_SHORT_CASTLING;
+        if (fields[2].contains("Q")) castlingsPossible |= WHITE_LONG_CASTLING;
+        if (fields[2].contains("k")) castlingsPossible |= BLACK_SHORT_CASTLING;
+        if (fields[2].contains("q")) castlingsPossible |= BLACK_LONG_CASTLING;
+        if (fields[3].equals("-")) {
+            enPassantSquare = -1;
+        } else {
+            enPassantSquare = Bitboards.square(fields[3].charAt(0) - 'a' + 1, fields[3].charAt(1) - '0');
+        }
+        amountOfReversableMoves = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+        lastMove = null;
+        historySize = 0;
+        hash = Zobrist.hash(this);
+    }
+
+    /**
+     * Remove all pieces.
+     */
+    private void clearBoard() {
+        pieces = new Piece[Bitboards.SQUARES];
+        bitboards = new long[2 * Bitboards.PIECE_TYPES];
+        colorOccupancy = new long[2];
+        occupancy = 0;
+        pieceCounts = new int[2];
+        kingSquares = new int[]{-1, -1};
+        pawnHash = 0;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
     }
 
     public synchronized void addPiece(Piece p, ChessPosition l) {
-        pieces[l.x][l.y] = p;
+        int square = l.getSquare();
+        clear(square); //a piece that was already there is replaced
+        put(square, p);
+        hash = Zobrist.hash(this); //a pawn can change whether en-passent is possible, so compute it again
     }
 
     public synchronized void removePiece(ChessPosition l) {
-        pieces[l.x][l.y] = null;
+        clear(l.getSquare());
+        hash = Zobrist.hash(this);
+    }
+
+    /**
+     * Place a piece on an empty square and update the bitboards and piece lists.
+     */
+    private void put(int square, Piece p) {
+        pieces[square] = p;
+        long bit = Bitboards.bit(square);
+        int c = p.getColor().ordinal();
+        bitboards[Bitboards.index(p.getColor(), p.getType())] |= bit;
+        colorOccupancy[c] |= bit;
+        occupancy |= bit;
+        pieceListIndex[square] = pieceCounts[c];
+        pieceSquares[c][pieceCounts[c]++] = square;
+        if (p.getType() == PieceType.King) {
+            kingSquares[c] = square;
+        }
+        int index = Bitboards.index(p.getColor(), p.getType());
+        hash ^= Zobrist.PIECE_KEYS[index][square];
+        if (p.getType() == PieceType.Pawn) {
+            pawnHash ^= Zobrist.PIECE_KEYS[index][square];
+        }
+        middlegameScore += PieceSquareTables.MIDDLEGAME_SCORES[index][square];
+        endgameScore += PieceSquareTables.ENDGAME_SCORES[index][square];
+        phase += PieceSquareTables.PHASES[index];
+    }
+
+    /**
+     * Remove the piece on a square (if any) and update the bitboards.
+     * @return the removed piece, or null if the square was empty.
+     */
+    private Piece clear(int square) {
+        Piece p = pieces[square];
+        if (p != null) {
+            pieces[square] = null;
+            long bit = Bitboards.bit(square);
+            int c = p.getColor().ordinal();
+            bitboards[Bitboards.index(p.getColor(), p.getType())] &= ~bit;
+            colorOccupancy[c] &= ~bit;
+            occupancy &= ~bit;
+            //move the last piece of the list into the place of the removed one
+            int last = pieceSquares[c][--pieceCounts[c]];
+            pieceSquares[c][pieceListIndex[square]] = last;
+            pieceListIndex[last] = pieceListIndex[square];
+            if (p.getType() == PieceType.King) {
+                kingSquares[c] = -1;
+            }
+            int index = Bitboards.index(p.getColor(), p.getType());
+            hash ^= Zobrist.PIECE_KEYS[index][square];
+            if (p.getType() == PieceType.Pawn) {
+                pawnHash ^= Zobrist.PIECE_KEYS[index][square];
+            }
+            middlegameScore -= PieceSquareTables.MIDDLEGAME_SCORES[index][square];
+            endgameScore -= PieceSquareTables.ENDGAME_SCORES[index][square];
+            phase -= PieceSquareTables.PHASES[index];
+        }
+        return p;
+    }
+
+    /**
+     * Move a piece to an empty square. Cheaper than clear and put, because the piece keeps its place in the piece list.
+     * @return the moved piece
+     */
+    private Piece movePiece(int from, int to) {
+        Piece p = pieces[from];
+        pieces[from] = null;
+        pieces[to] = p;
+        long bits = Bitboards.bit(from) | Bitboards.bit(to);
+        int c = p.getColor().ordinal();
+        int index = Bitboards.index(p.getColor(), p.getType());
+        bitboards[index] ^= bits;
+        hash ^= Zobrist.PIECE_KEYS[index][from] ^ Zobrist.PIECE_KEYS[index][to];
+        if (p.getType() == PieceType.Pawn) {
+            pawnHash ^= Zobrist.PIECE_KEYS[index][from] ^ Zobrist.PIECE_KEYS[index][to];
+        }
+        middlegameScore += PieceSquareTables.MIDDLEGAME_SCORES[index][to] - PieceSquareTables.MIDDLEGAME_SCORES[index][from];
+        endgameScore += PieceSquareTables.ENDGAME_SCORES[index][to] - PieceSquareTables.ENDGAME_SCORES[index][from];
+        colorOccupancy[c] ^= bits;
+        occupancy ^= bits;
+        pieceListIndex[to] = pieceListIndex[from];
+        pieceSquares[c][pieceListIndex[to]] = to;
+        if (p.getType() == PieceType.King) {
+            kingSquares[c] = to;
+        }
+        return p;
     }
 
     public synchronized Piece getPiece(ChessPosition position) {
-        return getPiece(position.x, position.y);
+        return getPiece(position.getSquare());
     }
 
     public Piece getPiece(int x, int y) {
-        if (x > Engine.CELL_AMOUNT || y > Engine.CELL_AMOUNT || x < 1 || y < 1) {
+        if (x > Bitboards.CELL_AMOUNT || y > Bitboards.CELL_AMOUNT || x < 1 || y < 1) {
             return null; //there are no pieces out of bounds.
         }
-        return pieces[x][y];
+        return pieces[Bitboards.square(x, y)];
     }
 
     /**
-     * Get all pieces.
+     * Get the piece on a square from 0 to 63 (see Bitboards).
      */
-    public synchronized Piece[][] getPieces() {
+    public Piece getPiece(int square) {
+        return pieces[square];
+    }
+
+    /**
+     * Get all pieces, indexed by square (see Bitboards).
+     */
+    public synchronized Piece[] getPieces() {
         return pieces.clone();
     }
 
@@ -119,16 +345,55 @@ public class Handler implements Cloneable {
      */
     public synchronized Set<Piece> getPieces(ChessColor c) {
         Set<Piece> returnSet = new HashSet<>();
-        for (Piece[] row : pieces) {
-            for (Piece p : row) {
-                if (p.getColor() == c) {
-                    returnSet.add(p);
-                }
-            }
+        for (int i = 0; i < pieceCounts[c.ordinal()]; i++) {
+            returnSet.add(getPiece(pieceSquares[c.ordinal()][i]));
         }
         return returnSet;
     }
 
+    /**
+     * The amount of pieces of a color, king included.
+     */
+    public int getPieceCount(ChessColor c) {
+        return pieceCounts[c.ordinal()];
+    }
+
+    /**
+     * The square of one of the pieces of a color, for an index from 0 up to getPieceCount. The order of the pieces
+     * changes when pieces move.
+     */
+    public int getPieceSquare(ChessColor c, int index) {
+        return pieceSquares[c.ordinal()][index];
+    }
+
+    /**
+     * The square of the king of a color, -1 if there is none.
+     */
+    public int getKingSquare(ChessColor c) {
+        return kingSquares[c.ordinal()];
+    }
+
+    /**
+     * The bitboard with all pieces of the given color and type
+     */
+    public long getBitboard(ChessColor c, PieceType type) {
+        return bitboards[Bitboards.index(c, type)];
+    }
+
+    /**
+     * The bitboard with all pieces of the given color
+     */
+    public long getOccupancy(ChessColor c) {
+        return colorOccupancy[c.ordinal()];
+    }
+
+    /**
+     * The bitboard with all pieces on the board
+     */
+    public long getOccupancy() {
+        return occupancy;
+    }
+
     public Set<Piece> getWhitePieces() {
         return getPieces(ChessColor.White);
     }
@@ -146,14 +411,11 @@ public class Handler implements Cloneable {
     }
 
     public synchronized King getKing(ChessColor c) {
-        for (Piece[] row : pieces) {
-            for (Piece p : row) {
-                if (p instanceof King && p.getColor() == c) {
-                    return (King)p;
-                }
-            }
+        int square = kingSquares[c.ordinal()];
+        if (square == -1) {
+            throw new IllegalStateException("There is no " + c + " king");
         }
-        throw new IllegalStateException("There is no " + c + " king");
+        return (King) getPiece(square);
     }
 
     public synchronized King getWhiteKing() {
@@ -165,15 +427,11 @@ public class Handler implements Cloneable {
     }
 
     public synchronized ChessPosition getKingPosition(ChessColor c) {
-        for (int x = 1; x < pieces.length; x++) {
-            for (int y = 1; y < pieces.length; y++) {
-                Piece king = pieces[x][y];
-                if (king instanceof King && king.getColor() == c) {
-                    return new ChessPosition(x, y, canvas);
-                }
-            }
+        int square = kingSquares[c.ordinal()];
+        if (square == -1) {
+            throw new IllegalStateException("There are no kings to be found.");
         }
-        throw new IllegalStateException("There are no kings to be found.");
+        return ChessPosition.get(square);
     }
 
     public synchronized ChessPosition getBlackKingPosition() {
@@ -185,11 +443,44 @@ public class Handler implements Cloneable {
     }
 
     public synchronized boolean whiteKingChecked() {
-        return getWhiteKing().isChecked(getWhiteKingPosition());
+        return getWhiteKing().isChecked(this, getWhiteKingPosition());
     }
 
     public synchronized boolean blackKingChecked() {
-        return getBlackKing().isChecked(getBlackKingPosition());
+        return getBlackKing().isChecked(this, getBlackKingPosition());
+    }
+
+    /**
+     * Whether or not the king of the given color is checked.
+     */
+    public synchronized boolean isChecked(ChessColor c) {
+        return isSquareAttacked(kingSquares[c.ordinal()], c.opposite());
+    }
+
+    /**
+     * Whether or not one of the pieces of the given color could capture on the given square, if there was a piece.
+     * Instead of generating the moves of the other pieces, it looks outward from the square: a knight is attacking
+     * the square if a knight on the square would attack it, and the same holds for all other pieces. For pawns the
+     * direction is reversed, so the pawn attacks of the opposite color are used.
+     */
+    public synchronized boolean isSquareAttacked(int square, ChessColor by) {
+        int offset = by.ordinal() * Bitboards.PIECE_TYPES;
+        if ((Attacks.pawnAttacks(by.opposite(), square) & bitboards[offset + PieceType.Pawn.ordinal()]) != 0) {
+            return true;
+        }
+        if ((Attacks.knightAttacks(square) & bitboards[offset + PieceType.Knight.ordinal()]) != 0) {
+            return true;
+        }
+        if ((Attacks.kingAttacks(square) & bitboards[offset + PieceType.King.ordinal()]) != 0) {
+            return true;
+        }
+        long queens = bitboards[offset + PieceType.Queen.ordinal()];
+        long diagonalSliders = bitboards[offset + PieceType.Bishop.ordinal()] | queens;
+        if ((Attacks.bishopAttacks(square, occupancy) & diagonalSliders) != 0) {
+            return true;
+        }
+        long straightSliders = bitboards[offset + PieceType.Rook.ordinal()] | queens;
+        return (Attacks.rookAttacks(square, occupancy) & straightSliders) != 0;
     }
 
     /**
@@ -197,26 +488,87 @@ public class Handler implements Cloneable {
      */
     public void changeTurn() {
         whiteTurn = !whiteTurn;
+        hash ^= Zobrist.BLACK_TO_MOVE_KEY;
+    }
+
+    /**
+     * The Zobrist hash of the position. Positions with the same pieces, color to move, castlings and en-passent
+     * possibility have the same hash.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * The hash of only the pawns of the position. Positions with the same pawns have the same pawn hash.
+     */
+    public long getPawnHash() {
+        return pawnHash;
+    }
+
+    /**
+     * The material and piece square score of the position for the middlegame in centipawns, positive is good for
+     * white. Kept up to date with every move, so this is cheap.
+     */
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * The material and piece square score of the position for the endgame, see getMiddlegameScore.
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * The phase of the game, from PieceSquareTables.MAX_PHASE with all pieces on the board to 0 with only pawns and
+     * kings. It can be above MAX_PHASE after promotions.
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Compare the incrementally updated scores with scores computed from scratch, for the assertions.
+     */
+    private boolean scoresAreCorrect() {
+        return pawnHash == Zobrist.pawnHash(this)
+                && middlegameScore == PieceSquareTables.middlegameScore(this)
+                && endgameScore == PieceSquareTables.endgameScore(this)
+                && phase == PieceSquareTables.phase(this);
     }
 
     public synchronized boolean isWhiteToMove() {
         return whiteTurn;
     }
 
+    public synchronized ChessColor getColorToMove() {
+        return whiteTurn ? ChessColor.White : ChessColor.Black;
+    }
+
     public boolean blackMated() {
-        return getBlackKing().isMated(getBlackKingPosition());
+        return getBlackKing().isMated(this, getBlackKingPosition());
     }
 
     public boolean whiteMated() {
-        return getWhiteKing().isMated(getWhiteKingPosition());
+        return getWhiteKing().isMated(this, getWhiteKingPosition());
     }
 
     public boolean whiteStaleMated() {
-        return getWhiteKing().isStaleMated(getWhiteKingPosition());
+        return getWhiteKing().isStaleMated(this, getWhiteKingPosition());
     }
 
     public boolean blackStaleMated() {
-        return getBlackKing().isStaleMated(getBlackKingPosition());
+        return getBlackKing().isStaleMated(this, getBlackKingPosition());
+    }
+
+    /**
+     * Whether or not the given color has at least one legal move.
+     */
+    public synchronized boolean hasLegalMoves(ChessColor c) {
+        getMovesWithCheck(c, legalScratch);
+        return !legalScratch.isEmpty();
     }
 
     public boolean isLastMove() {
@@ -240,105 +592,210 @@ public class Handler implements Cloneable {
     public synchronized void execute(Move m, boolean boardRedrawRequired) {
         if (m.isExecuted()) throw new IllegalArgumentException();
         m.setExecuted(true);
-        ChessPosition start = m.getStartPosition();
-        ChessPosition end = m.getEndPosition();
-
-        m.setCastlings(castlingsPossible); //set the state of the castlings before the move was executed.
-        checkAndSetCastlings(m);
-        //remove the captured piece
-        ChessPosition capturedPiecePosition = m.getCapturedPiecePosition();
-        if (capturedPiecePosition != null) { //in case of a castling
-            pieces[capturedPiecePosition.x][capturedPiecePosition.y] = null;
-        }
-        m.setAmountOfReversableMovesBeforeThisMove(this.amountOfReversableMoves);
-        if (!(m.getCapturedPiece() != null || pieces[start.x][start.y] instanceof Pawn)) {
-            //a move is reversable iff it is a move by a pieces (except pawns) to an empty target square.
-            //i.e. the complement of all capture moves and all pawn moves.
-            this.amountOfReversableMoves++;
-        } else {
-            this.amountOfReversableMoves = 0; //reset the counter if it was not a reversable move.
-        }
-
-
-        //move piece to new position
-        pieces[end.x][end.y] = pieces[start.x][start.y];
-        //set old position to null
-        pieces[start.x][start.y] = null;
-        if (m instanceof Castling) { //also move the rook
-            ChessPosition rookStart = ((Castling) m).getRookStartPosition();
-            ChessPosition rookEnd = ((Castling) m).getRookEndPosition();
-            pieces[rookEnd.x][rookEnd.y] = pieces[rookStart.x][rookStart.y];
-            pieces[rookStart.x][rookStart.y] = null;
-        } else if (m instanceof PawnPromotion) { //promote the piece
-            pieces[end.x][end.y] = ((PawnPromotion) m).getPromotionPiece();
-        }
+        makeMove(m.getCode());
         this.setLastMove(m);
-        this.changeTurn();
         if (boardRedrawRequired) {  //board redraw is done here instead of after an execute in run() of the engine to avoid
                                     //threading issues where the other player is already trying things out and moving pieces
                                     //before the redraw has happened. This will result in a redraw with pieces in undefined places.
                                     //This issue won't arise here, because this method is synchronised, so the other player
                                     //will have to wait for the board to finish drawing.
-            e.getCanvas().requestBoardRepaint();
-            e.getCanvas().repaint();
+            if (boardChangedListener != null) {
+                boardChangedListener.run();
+            }
         }
     }
 
+    /**
+     * Set what should happen after execute when a redraw is required. Used by the GUI to repaint the board.
+     */
+    public void setBoardChangedListener(Runnable boardChangedListener) {
+        this.boardChangedListener = boardChangedListener;
+    }
+
     public synchronized void undo(Move m) {
         if (!m.isExecuted()) throw new IllegalArgumentException();
         m.setExecuted(false);
-        ChessPosition start = m.getStartPosition();
-        ChessPosition end = m.getEndPosition();
-        //move piece to old position
-        pieces[start.x][start.y] = pieces[end.x][end.y];
-        //remove piece from old position
-        pieces[end.x][end.y] = null;
+        unmakeMove(m.getCode());
+        this.setLastMove(m.getPreviousLastMove());
+    }
+
+    /**
+     * Execute an encoded move (see MoveEncoding). Moves have to be undone with unmakeMove in the reverse order.
+     */
+    public synchronized void makeMove(int move) {
+        int from = MoveEncoding.from(move);
+        int to = MoveEncoding.to(move);
+        int kind = MoveEncoding.kind(move);
+
+        if (historySize == capturedHistory.length) {
+            growHistory();
+        }
+        castlingHistory[historySize] = castlingsPossible;
+        enPassantHistory[historySize] = enPassantSquare;
+        reversableMovesHistory[historySize] = amountOfReversableMoves;
+        hashHistory[historySize] = hash;
+        ChessColor color = getColorToMove();
+        //remove the castlings and en-passent from the hash now, because the pieces still decide if en-passent is possible
+        hash ^= Zobrist.CASTLING_KEYS[castlingsPossible] ^ Zobrist.enPassantKey(this, enPassantSquare, color);
+
+        //remove the captured piece
+        Piece captured = null;
+        if (kind == MoveEncoding.EN_PASSANT) {
+            captured = clear(enPassantCaptureSquare(from, to));
+        } else if (MoveEncoding.isCapture(move)) {
+            captured = clear(to);
+        }
+        //move piece to new position and set old position to null
+        Piece moving = movePiece(from, to);
+        if (kind == MoveEncoding.CASTLING) { //also move the rook
+            movePiece(castlingRookStart(to), castlingRookEnd(to));
+        } else if (kind == MoveEncoding.PROMOTION) { //promote the piece
+            clear(to);
+            put(to, Piece.get(MoveEncoding.promotionType(move), moving.getColor()));
+        }
+        capturedHistory[historySize] = captured;
+        movedHistory[historySize] = moving;
+        historySize++;
+
+        if (captured == null && moving.getType() != PieceType.Pawn) {
+            //a move is reversable iff it is a move by a pieces (except pawns) to an empty target square.
+            //i.e. the complement of all capture moves and all pawn moves.
+            this.amountOfReversableMoves++;
+        } else {
+            this.amountOfReversableMoves = 0; //reset the counter if it was not a reversable move.
+        }
+        castlingsPossible &= CASTLING_MASKS[from] & CASTLING_MASKS[to];
+        enPassantSquare = kind == MoveEncoding.DOUBLE_PAWN_PUSH ? (from + to) / 2 : -1;
+        hash ^= Zobrist.CASTLING_KEYS[castlingsPossible] ^ Zobrist.enPassantKey(this, enPassantSquare, color.opposite());
+        this.changeTurn();
+        assert hash == Zobrist.hash(this) : "Incremental hash is wrong after " + MoveEncoding.toString(move);
+        assert scoresAreCorrect() : "Incremental scores are wrong after " + MoveEncoding.toString(move);
+    }
+
+    /**
+     * Undo an encoded move that was the last move done with makeMove.
+     */
+    public synchronized void unmakeMove(int move) {
+        int from = MoveEncoding.from(move);
+        int to = MoveEncoding.to(move);
+        int kind = MoveEncoding.kind(move);
+        historySize--;
+
+        //move piece to old position and remove it from the new position
+        if (kind == MoveEncoding.PROMOTION) {
+            clear(to);
+            put(from, movedHistory[historySize]); //put back the pawn
+        } else {
+            movePiece(to, from);
+        }
+        if (kind == MoveEncoding.CASTLING) { //also move the rook back
+            movePiece(castlingRookEnd(to), castlingRookStart(to));
+        }
         //put back the captured piece
-        ChessPosition capturedPiecePosition = m.getCapturedPiecePosition();
-        if (capturedPiecePosition != null) { //in case of castling
-            pieces[capturedPiecePosition.x][capturedPiecePosition.y] = m.getCapturedPiece();
+        Piece captured = capturedHistory[historySize];
+        if (captured != null) {
+            put(kind == MoveEncoding.EN_PASSANT ? enPassantCaptureSquare(from, to) : to, captured);
         }
-        if (m instanceof Castling) { //also move the rook back
-            ChessPosition rookStart = ((Castling) m).getRookStartPosition();
-            ChessPosition rookEnd = ((Castling) m).getRookEndPosition();
-            pieces[rookStart.x][rookStart.y] = pieces[rookEnd.x][rookEnd.y]; //move the rook back
-            pieces[rookEnd.x][rookEnd.y] = null; //delete the old rook
-        } else if (m instanceof PawnPromotion) { //place the pawn back
-            pieces[start.x][start.y] = ((PawnPromotion) m).getPawn();
+        capturedHistory[historySize] = null;
+        movedHistory[historySize] = null;
+
+        castlingsPossible = castlingHistory[historySize];
+        enPassantSquare = enPassantHistory[historySize];
+        amountOfReversableMoves = reversableMovesHistory[historySize];
+        this.changeTurn();
+        hash = hashHistory[historySize];
+        assert hash == Zobrist.hash(this) : "Incremental hash is wrong after undoing " + MoveEncoding.toString(move);
+        assert scoresAreCorrect() : "Incremental scores are wrong after undoing " + MoveEncoding.toString(move);
+    }
+
+    /**
+     * Pass the turn to the other color without moving, used by the null move pruning of the search. Undo it with
+     * unmakeNullMove. En-passent is no longer possible afterwards, and no repetition can reach back across it.
+     */
+    public synchronized void makeNullMove() {
+        if (historySize == capturedHistory.length) {
+            growHistory();
         }
+        castlingHistory[historySize] = castlingsPossible;
+        enPassantHistory[historySize] = enPassantSquare;
+        reversableMovesHistory[historySize] = amountOfReversableMoves;
+        hashHistory[historySize] = hash;
+        historySize++;
+        hash ^= Zobrist.enPassantKey(this, enPassantSquare, getColorToMove());
+        enPassantSquare = -1;
+        amountOfReversableMoves = 0;
+        this.changeTurn();
+    }
 
-        castlingsPossible = m.getCastlingsPossible(); //this assumes that the values have been correctly set before the move was executed.
-        amountOfReversableMoves = m.getAmountOfReversableMovesBeforeThisMove(); // """
-        this.setLastMove(m.getPreviousLastMove());
+    public synchronized void unmakeNullMove() {
+        historySize--;
+        enPassantSquare = enPassantHistory[historySize];
+        amountOfReversableMoves = reversableMovesHistory[historySize];
         this.changeTurn();
+        hash = hashHistory[historySize];
     }
 
-    public void checkAndSetCastlings(Move m) {
-        ChessPosition start = m.getStartPosition();
-        ChessPosition end = m.getEndPosition();
-        Piece startPiece = getPiece(start);
-        if (startPiece instanceof King) { //king is moving
-            if (startPiece.getColor() == ChessColor.White) { //white king is moving
-                castlingsPossible[0] = false; //no white castlings possible anymore
-                castlingsPossible[1] = false;
-            } else { //black king is moving
-                castlingsPossible[2] = false; //no black castlings possible anymore
-                castlingsPossible[3] = false;
-            }
-        } else if (startPiece instanceof Rook) {
-            if (startPiece.getColor() == ChessColor.White) { //A white rook is moving
-                if (start.equals(new ChessPosition(1, 1, canvas))) { //left white rook is moving
-                    castlingsPossible[1] = false; //no white long castling possible anymore
-                } else if (start.equals(new ChessPosition(8, 1, canvas))) {
-                    castlingsPossible[0] = false; //no white short castling possible anymore
-                }
-            } else { //black rook is moving
-                if (start.equals(new ChessPosition(1, 8, canvas))) { //left black rook is moving
-                    castlingsPossible[3] = false; //no black long castling possible anymore
-                } else if (start.equals(new ChessPosition(8, 8, canvas))) { //right black rook is moving
-                    castlingsPossible[2] = false; //no black short castling possible anymore.
-                }
-            }
+    private void growHistory() {
+        int size = capturedHistory.length * 2;
+        capturedHistory = Arrays.copyOf(capturedHistory, size);
+        movedHistory = Arrays.copyOf(movedHistory, size);
+        castlingHistory = Arrays.copyOf(castlingHistory, size);
+        enPassantHistory = Arrays.copyOf(enPassantHistory, size);
+        reversableMovesHistory = Arrays.copyOf(reversableMovesHistory, size);
+        hashHistory = Arrays.copyOf(hashHistory, size);
+    }
+
+    /**
+     * The square of the pawn that is captured en-passent: next to the start square, on the column of the end square.
+     */
+    private static int enPassantCaptureSquare(int from, int to) {
+        return Bitboards.square(Bitboards.x(to), Bitboards.y(from));
+    }
+
+    /**
+     * The start square of the rook in a castling, given the end square of the king.
+     */
+    public static int castlingRookStart(int kingEnd) {
+        return Bitboards.x(kingEnd) == 7 ? kingEnd + 1 : kingEnd - 2;
+    }
+
+    /**
+     * The end square of the rook in a castling, given the end square of the king.
+     */
+    public static int castlingRookEnd(int kingEnd) {
+        return Bitboards.x(kingEnd) == 7 ? kingEnd - 1 : kingEnd + 1;
+    }
+
+    /**
+     * The square a pawn can move to by capturing en-passent, -1 if there is none.
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * The castlings that are still possible as bits, see WHITE_SHORT_CASTLING and the others.
+     */
+    public int getCastlingRights() {
+        return castlingsPossible;
+    }
+
+    /**
+     * Make a move object for the GUI and the players from an encoded move.
+     */
+    public synchronized Move toMove(int move) {
+        ChessPosition start = ChessPosition.get(MoveEncoding.from(move));
+        ChessPosition end = ChessPosition.get(MoveEncoding.to(move));
+        switch (MoveEncoding.kind(move)) {
+            case MoveEncoding.CASTLING:
+                int rookStart = castlingRookStart(MoveEncoding.to(move));
+                int rookEnd = castlingRookEnd(MoveEncoding.to(move));
+                return new Castling(start, end, ChessPosition.get(rookStart),
+                        ChessPosition.get(rookEnd), move, lastMove);
+            case MoveEncoding.PROMOTION:
+                return new PawnPromotion(start, end, move, lastMove);
+            default:
+                return new Move(start, end, move, lastMove);
         }
     }
 
@@ -346,73 +803,200 @@ public class Handler implements Cloneable {
      * Return whether or not a castling is possible. It only checks if rook/king have moved yet.
      */
     public boolean whiteShortCastlingPossible() {
-        return castlingsPossible[0];
+        return (castlingsPossible & WHITE_SHORT_CASTLING) != 0;
     }
 
     /**
      * Return whether or not a castling is possible. It only checks if rook/king have moved yet.
      */
     public boolean whiteLongCastlingPossible() {
-        return castlingsPossible[1];
+        return (castlingsPossible & WHITE_LONG_CASTLING) != 0;
     }
 
     /**
      * Return whether or not a castling is possible. It only checks if rook/king have moved yet.
      */
     public boolean blackShortCastlingPossible() {
-        return castlingsPossible[3];
+        return (castlingsPossible & BLACK_SHORT_CASTLING) != 0;
     }
 
     /**
      * Return whether or not a castling is possible. It only checks if rook/king have moved yet.
      */
     public boolean blackLongCastlingPossible() {
-        return castlingsPossible[2];
+        return (castlingsPossible & BLACK_LONG_CASTLING) != 0;
     }
 
-    public synchronized void drawPieces(Graphics g) {
-        for (int x = 1; x < pieces.length; x++) {
-            for (int y = 1; y < pieces.length; y++) {
-                Piece p = pieces[x][y];
-                if (p != null) {
-                    pieces[x][y].draw(g, new ChessPosition(x, y, canvas));
-                }
-            }
+    /**
+     * All legal moves of a color as move objects. Meant for the GUI and the players, the search uses the MoveList
+     * version.
+     */
+    public synchronized Set<Move> getMovesWithCheck(ChessColor c) {
+        MoveList moves = new MoveList();
+        getMovesWithCheck(c, moves);
+        Set<Move> moveSet = new HashSet<>();
+        for (int i = 0; i < moves.size(); i++) {
+            moveSet.add(toMove(moves.get(i)));
         }
+        return moveSet;
     }
 
-    public synchronized Set<Move> getOppositeColorMoves(ChessColor c) {
-        Set<Move> moves = new HashSet<>();
-        for (int x = 1; x < pieces.length; x++) {
-            for (int y = 1; y < pieces.length; y++) {
-                Piece p = pieces[x][y];
-                if (p != null) {
-                    if (p.getColor() != c) {
-                        moves.addAll(p.getMoves(new ChessPosition(x, y, canvas)));
+    /**
+     * Puts all legal moves of a color in the list. The list is cleared first.
+     * The checking pieces and the pinned pieces are computed once, after which every piece only generates moves to
+     * squares that keep the own king safe. Only en-passent captures are tried out on the board, because they remove
+     * a piece from a square the move does not end on.
+     */
+    public synchronized void getMovesWithCheck(ChessColor c, MoveList moves) {
+        generateMoves(c, moves, false);
+    }
+
+    /**
+     * Puts all legal captures and promotions of a color in the list, used by the quiescence search. The list is
+     * cleared first.
+     */
+    public synchronized void getCapturesWithCheck(ChessColor c, MoveList moves) {
+        generateMoves(c, moves, true);
+    }
+
+    private void generateMoves(ChessColor c, MoveList moves, boolean capturesOnly) {
+        moves.clear();
+        ChessColor other = c.opposite();
+        long own = colorOccupancy[c.ordinal()];
+        int kingSquare = kingSquares[c.ordinal()];
+        long checkers = attackersTo(kingSquare, other, occupancy);
+
+        //the king may go to every square that is not attacked once it has left its current square
+        long enemies = colorOccupancy[other.ordinal()];
+        long kingTargets = Attacks.kingAttacks(kingSquare) & (capturesOnly ? enemies : ~own);
+        long safeKingTargets = 0;
+        long occupancyWithoutKing = occupancy & ~Bitboards.bit(kingSquare);
+        while (kingTargets != 0) {
+            int to = Bitboards.firstSquare(kingTargets);
+            if (attackersTo(to, other, occupancyWithoutKing) == 0) {
+                safeKingTargets |= Bitboards.bit(to);
+            }
+            kingTargets &= kingTargets - 1;
+        }
+        Piece king = getPiece(kingSquare);
+        king.getMoves(this, kingSquare, safeKingTargets, moves);
+        if (Bitboards.count(checkers) > 1) {
+            return; //in a double check, only the king can move
+        }
+
+        long targets = ~own;
+        if (checkers != 0) { //capture the checking piece or block the check
+            int checker = Bitboards.firstSquare(checkers);
+            targets &= checkers | Attacks.between(kingSquare, checker);
+        } else if (!capturesOnly) {
+            ((King) king).getCastlingMoves(this, kingSquare, moves);
+        }
+        long pinned = pinnedPieces(c, kingSquare);
+        int firstPieceMove = moves.size();
+        int[] squares = pieceSquares[c.ordinal()];
+        for (int i = 0; i < pieceCounts[c.ordinal()]; i++) {
+            int from = squares[i];
+            if (from == kingSquare) {
+                continue;
+            }
+            long pieceTargets = targets;
+            if (capturesOnly) { //pawns can also promote without capturing
+                pieceTargets &= pieces[from].getType() == PieceType.Pawn ? enemies | LAST_ROWS : enemies;
+            }
+            if ((pinned & Bitboards.bit(from)) != 0) { //a pinned piece can only move along the pin
+                pieceTargets &= Attacks.line(kingSquare, from);
+            }
+            pieces[from].getMoves(this, from, pieceTargets, moves);
+        }
+
+        if (enPassantSquare != -1) {
+            //remove the en-passent captures that leave the king checked
+            int legal = firstPieceMove;
+            for (int i = firstPieceMove; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (MoveEncoding.kind(move) == MoveEncoding.EN_PASSANT) {
+                    makeMove(move);
+                    boolean checked = isChecked(c);
+                    unmakeMove(move);
+                    if (checked) {
+                        continue;
                     }
                 }
+                moves.set(legal++, move);
             }
+            moves.truncate(legal);
         }
-        return moves;
     }
 
-    public synchronized Set<Move> getMovesWithCheck(ChessColor c) {
-        Set<Move> moves = new HashSet<>();
-        for (int x = 1; x < pieces.length; x++) {
-            for (int y = 1; y < pieces.length; y++) {
-                Piece p = pieces[x][y];
-                if (p != null && p.getColor() == c) {
-                    moves.addAll(p.getMovesWithCheck(new ChessPosition(x, y, canvas)));
-                }
+    /**
+     * All pieces of the given color that attack the square, given the occupied squares.
+     */
+    private long attackersTo(int square, ChessColor by, long occupied) {
+        int offset = by.ordinal() * Bitboards.PIECE_TYPES;
+        long queens = bitboards[offset + PieceType.Queen.ordinal()];
+        return (Attacks.pawnAttacks(by.opposite(), square) & bitboards[offset + PieceType.Pawn.ordinal()])
+                | (Attacks.knightAttacks(square) & bitboards[offset + PieceType.Knight.ordinal()])
+                | (Attacks.kingAttacks(square) & bitboards[offset + PieceType.King.ordinal()])
+                | (Attacks.bishopAttacks(square, occupied) & (bitboards[offset + PieceType.Bishop.ordinal()] | queens))
+                | (Attacks.rookAttacks(square, occupied) & (bitboards[offset + PieceType.Rook.ordinal()] | queens));
+    }
+
+    /**
+     * The pieces of the given color that can not leave the line between their king and an attacking slider.
+     */
+    private long pinnedPieces(ChessColor c, int kingSquare) {
+        int offset = c.opposite().ordinal() * Bitboards.PIECE_TYPES;
+        long queens = bitboards[offset + PieceType.Queen.ordinal()];
+        //the sliders that would attack the king if there were no pieces in between
+        long snipers = (Attacks.rookAttacks(kingSquare, 0) & (bitboards[offset + PieceType.Rook.ordinal()] | queens))
+                | (Attacks.bishopAttacks(kingSquare, 0) & (bitboards[offset + PieceType.Bishop.ordinal()] | queens));
+        long pinned = 0;
+        while (snipers != 0) {
+            long blockers = Attacks.between(kingSquare, Bitboards.firstSquare(snipers)) & occupancy;
+            if (Bitboards.count(blockers) == 1) {
+                pinned |= blockers & colorOccupancy[c.ordinal()];
             }
+            snipers &= snipers - 1;
         }
-        return moves;
+        return pinned;
     }
 
     public boolean fiftyMoves() {
         return amountOfReversableMoves >= 50;
     }
 
+    /**
+     * How many times the current position occurred before. Only the positions since the last irreversible move
+     * (see amountOfReversableMoves) can be the same, so only those are compared, and only every second one, because
+     * the same color has to be to move.
+     */
+    public synchronized int getRepetitionCount() {
+        int count = 0;
+        //hashHistory[i] is the hash before move i, so the position 2 plies ago is at historySize - 2
+        int oldest = historySize - Math.min(amountOfReversableMoves, historySize);
+        for (int i = historySize - 2; i >= oldest; i -= 2) {
+            if (hashHistory[i] == hash) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether or not the current position occurred before. In the search this already counts as a draw: if the
+     * position was good for one side, that side would not have allowed it to repeat.
+     */
+    public boolean isRepetition() {
+        return getRepetitionCount() > 0;
+    }
+
+    /**
+     * Whether or not the current position occurred for the third time, which is a draw.
+     */
+    public boolean isThreefoldRepetition() {
+        return getRepetitionCount() >= 2;
+    }
+
     public Handler clone() {
         return new Handler(this);
     }
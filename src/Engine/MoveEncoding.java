@@ -0,0 +1,81 @@
+package Engine;
+
+import pieces.PieceType;
+
+/**
+ * Moves are encoded in a single int, so that the search does not have to allocate any objects.
+ * Bits 0-5 hold the start square, bits 6-11 the end square, bits 12-15 the flags and bits 16-18 the
+ * ordinal of the piece type a pawn promotes to. See Bitboards for the square numbering.
+ * The value 0 (a move from (1,1) to (1,1)) can never be a real move and is used for "no move".
+ * Class can not be instantiated.
+ */
+public final class MoveEncoding {
+
+    public static final int NONE = 0;
+
+    //the kind of move, stored in the lower three bits of the flags
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int CASTLING = 2;
+    public static final int EN_PASSANT = 3;
+    public static final int PROMOTION = 4;
+    //set for every move that captures a piece, en-passent included
+    public static final int CAPTURE = 8;
+
+    private MoveEncoding() {}
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int encodePromotion(int from, int to, boolean capture, PieceType promotion) {
+        int flags = PROMOTION | (capture ? CAPTURE : 0);
+        return encode(from, to, flags) | (promotion.ordinal() << 16);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    /**
+     * The kind of move: QUIET, DOUBLE_PAWN_PUSH, CASTLING, EN_PASSANT or PROMOTION
+     */
+    public static int kind(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & (CAPTURE << 12)) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return kind(move) == PROMOTION;
+    }
+
+    public static PieceType promotionType(int move) {
+        return PieceType.values()[(move >>> 16) & 7];
+    }
+
+    /**
+     * A readable representation of the move, like e2e4 or e7e8q.
+     */
+    public static String toString(int move) {
+        String s = squareName(from(move)) + squareName(to(move));
+        if (isPromotion(move)) {
+            s += "nbrq".charAt(promotionType(move).ordinal() - PieceType.Knight.ordinal());
+        }
+        return s;
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + Bitboards.x(square) - 1) + Bitboards.y(square);
+    }
+}
@@ -0,0 +1,54 @@
+package Engine;
+
+/**
+ * A list of encoded moves (see MoveEncoding) backed by a fixed array. Lists are meant to be allocated once and reused
+ * with clear(), for example one per ply in the search.
+ */
+public class MoveList {
+
+    //no position has more pseudo legal moves than this
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Shrink the list to the first size moves.
+     */
+    public void truncate(int size) {
+        this.size = size;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,261 @@
+package Engine;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree up to a fixed depth (perft). The counts of the reference positions
+ * are known, so this verifies the move generation, and the nodes per second show how fast it is.
+ * Optionally, subtrees are split over all cores with a fork join pool and counts of transpositions are reused
+ * through a hash table.
+ */
+public class Perft {
+
+    private static final int MAX_DEPTH = 64;
+    private static final int SPLIT_DEPTH = 4; //in parallel mode, subtrees of at least this depth are split further
+
+    //fen, depth and the known node count at that depth
+    private static final String[][] REFERENCE_POSITIONS = {
+            {"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", "5", "4865609"},
+            {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "4", "4085603"},
+            {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "5", "674624"},
+            {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "4", "422333"},
+            {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "4", "2103487"},
+            {"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "4", "3894594"},
+    };
+
+    private final Handler handler;
+    private final MoveList[] moveLists = new MoveList[MAX_DEPTH]; //created when first needed, as tasks are short
+    private boolean parallel = false;
+    private HashTable hashTable; //null if there is no hashing
+
+    /**
+     * @param handler the position to count from. Moves are made on and undone from this handler.
+     */
+    public Perft(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Whether or not to split the tree over all cores.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Set the size of the hash table in megabytes, 0 turns hashing off.
+     */
+    public void setHashSize(int megabytes) {
+        hashTable = megabytes > 0 ? new HashTable(megabytes) : null;
+    }
+
+    /**
+     * The number of leaf nodes at the given depth.
+     */
+    public long perft(int depth) {
+        if (parallel && depth >= SPLIT_DEPTH) {
+            return new PerftTask(new Handler(handler), depth, hashTable).invoke();
+        }
+        return count(depth, 0);
+    }
+
+    /**
+     * The number of leaf nodes at the given depth below every root move, in the order of the move generator.
+     */
+    public Map<String, Long> divide(int depth) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        MoveList moves = new MoveList();
+        handler.getMovesWithCheck(handler.getColorToMove(), moves);
+        if (parallel) {
+            List<PerftTask> tasks = new ArrayList<>();
+            for (int i = 0; i < moves.size(); i++) {
+                Handler copy = new Handler(handler);
+                copy.makeMove(moves.get(i));
+                PerftTask task = new PerftTask(copy, depth - 1, hashTable);
+                task.fork(); //runs in the common pool
+                tasks.add(task);
+            }
+            for (int i = 0; i < moves.size(); i++) {
+                result.put(MoveEncoding.toString(moves.get(i)), tasks.get(i).join());
+            }
+        } else {
+            for (int i = 0; i < moves.size(); i++) {
+                int m = moves.get(i);
+                handler.makeMove(m);
+                result.put(MoveEncoding.toString(m), count(depth - 1, 1));
+                handler.unmakeMove(m);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Print the divide of the position, followed by the total number of nodes and the nodes per second.
+     */
+    public void printDivide(int depth, PrintStream out) {
+        long start = System.nanoTime();
+        Map<String, Long> divide = divide(depth);
+        long millis = (System.nanoTime() - start) / 1000000;
+        long nodes = 0;
+        for (Map.Entry<String, Long> entry : divide.entrySet()) {
+            out.println(entry.getKey() + ": " + entry.getValue());
+            nodes += entry.getValue();
+        }
+        out.println();
+        out.println("Moves: " + divide.size());
+        out.println("Nodes: " + nodes);
+        out.println("Time: " + millis + "ms");
+        out.println("Nodes/second: " + nodes * 1000 / Math.max(1, millis));
+    }
+
+    private long count(int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (moveLists[ply] == null) {
+            moveLists[ply] = new MoveList();
+        }
+        MoveList moves = moveLists[ply];
+        if (depth == 1) { //the leaves do not have to be visited, counting the moves is enough
+            handler.getMovesWithCheck(handler.getColorToMove(), moves);
+            return moves.size();
+        }
+        long hash = 0;
+        if (hashTable != null) {
+            hash = handler.getHash();
+            long stored = hashTable.get(hash, depth);
+            if (stored != -1) {
+                return stored;
+            }
+        }
+        handler.getMovesWithCheck(handler.getColorToMove(), moves);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moves.get(i);
+            handler.makeMove(m);
+            nodes += count(depth - 1, ply + 1);
+            handler.unmakeMove(m);
+        }
+        if (hashTable != null) {
+            hashTable.put(hash, depth, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Run perft on all reference positions and compare the results with the known node counts.
+     * @return true if all counts are correct
+     */
+    public static boolean checkReferencePositions(boolean parallel, int hashMegabytes, PrintStream out) {
+        boolean allCorrect = true;
+        long totalNodes = 0;
+        long totalMillis = 0;
+        for (String[] position : REFERENCE_POSITIONS) {
+            int depth = Integer.parseInt(position[1]);
+            long expected = Long.parseLong(position[2]);
+            Perft perft = new Perft(new Handler(position[0]));
+            perft.setParallel(parallel);
+            perft.setHashSize(hashMegabytes);
+            long start = System.nanoTime();
+            long nodes = perft.perft(depth);
+            long millis = (System.nanoTime() - start) / 1000000;
+            boolean correct = nodes == expected;
+            allCorrect &= correct;
+            totalNodes += nodes;
+            totalMillis += millis;
+            out.format("%-6s depth %d: %10d nodes %6dms %10d nodes/s  %s%n", correct ? "OK" : "FAILED", depth, nodes,
+                    millis, nodes * 1000 / Math.max(1, millis), correct ? position[0] : position[0] + " expected " + expected);
+        }
+        out.format("%-6s total: %10d nodes %6dms %10d nodes/s%n", allCorrect ? "OK" : "FAILED", totalNodes, totalMillis,
+                totalNodes * 1000 / Math.max(1, totalMillis));
+        return allCorrect;
+    }
+
+    /**
+     * Counts a subtree in the fork join pool. The task owns its handler, so no other thread touches it.
+     */
+    private static class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Handler handler;
+        private final int depth;
+        private final HashTable hashTable;
+
+        PerftTask(Handler handler, int depth, HashTable hashTable) {
+            this.handler = handler;
+            this.depth = depth;
+            this.hashTable = hashTable;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth < SPLIT_DEPTH) { //too small to be worth splitting
+                Perft perft = new Perft(handler);
+                perft.hashTable = hashTable;
+                return perft.count(depth, 0);
+            }
+            MoveList moves = new MoveList();
+            handler.getMovesWithCheck(handler.getColorToMove(), moves);
+            List<PerftTask> tasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                Handler copy = new Handler(handler);
+                copy.makeMove(moves.get(i));
+                tasks.add(new PerftTask(copy, depth - 1, hashTable));
+            }
+            invokeAll(tasks);
+            long nodes = 0;
+            for (PerftTask task : tasks) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * Node counts by position hash and depth. It can be shared between threads without locking: every entry is
+     * stored as the data and the key XOR the data, so an entry that is half overwritten by another thread does not
+     * match its key anymore and is simply not found.
+     */
+    private static class HashTable {
+        private static final int MAX_ENTRIES = 1 << 29; //8 gigabytes, the most a long array can hold
+        private final long[] entries; //two longs per entry
+        private final int mask;
+
+        HashTable(int megabytes) {
+            //in long, as the size in bytes does not fit in an int from 2048 megabytes on
+            long requested = Long.highestOneBit(Math.max(1, megabytes * 1024L * 1024 / 16));
+            int entryCount = (int) Math.min(requested, MAX_ENTRIES);
+            entries = new long[entryCount * 2];
+            mask = entryCount - 1;
+        }
+
+        /**
+         * @return the stored node count or -1 if it is not in the table
+         */
+        long get(long hash, int depth) {
+            int i = index(hash, depth);
+            long data = entries[i + 1];
+            if ((entries[i] ^ data) == hash && (data & 0xFF) == depth) {
+                return data >>> 8;
+            }
+            return -1;
+        }
+
+        void put(long hash, int depth, long nodes) {
+            int i = index(hash, depth);
+            long data = nodes << 8 | depth;
+            entries[i] = hash ^ data;
+            entries[i + 1] = data;
+        }
+
+        private int index(long hash, int depth) {
+            //mix in the depth, so the same position at different depths does not compete for one entry
+            return (int) ((hash ^ depth * 0x9E3779B97F4A7C15L) & mask) * 2;
+        }
+    }
+}
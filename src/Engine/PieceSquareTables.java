@@ -0,0 +1,187 @@
+package Engine;
+
+import pieces.ChessColor;
+import pieces.Piece;
+import pieces.PieceType;
+
+/**
+ * The value of every piece on every square, in centipawns: the material value of the piece plus a bonus or penalty for
+ * the square it stands on (knights in the center, pawns that advance, a king behind its pawns...).
+ * There is a value for the middlegame and one for the endgame, as some pieces belong elsewhere once the queens and
+ * most pieces are gone: the king should come to the center and the pawns should run. The evaluation mixes both by the
+ * phase of the game, the weight of the pieces that are left. Handler keeps both sums and the phase up to date with
+ * every move, see Handler.getMiddlegameScore.
+ * Values of white pieces are positive, of black pieces negative. Class can not be instantiated.
+ */
+public final class PieceSquareTables {
+
+    //the material value of every piece type in centipawns, indexed by the ordinal of the type
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+    //in the endgame, pawns and rooks get more important and knights less
+    private static final int[] ENDGAME_PIECE_VALUES = {120, 300, 330, 520, 930, 0};
+
+    //how much every piece type counts for the phase, indexed by the ordinal of the type. With all pieces on the board
+    //the phase is MAX_PHASE (middlegame), with only kings and pawns it is 0 (endgame).
+    private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+    public static final int MAX_PHASE = 24;
+
+    //the middlegame bonus of every square for white, indexed by the ordinal of the type. Written as the board is seen
+    //by white, the first row is the eighth rank. Black uses the tables mirrored.
+    private static final int[][] MIDDLEGAME_TABLES = {
+            { //pawn
+                    0,   0,   0,   0,   0,   0,   0,   0,
+                   50,  50,  50,  50,  50,  50,  50,  50,
+                   10,  10,  20,  30,  30,  20,  10,  10,
+                    5,   5,  10,  25,  25,  10,   5,   5,
+                    0,   0,   0,  20,  20,   0,   0,   0,
+                    5,  -5, -10,   0,   0, -10,  -5,   5,
+                    5,  10,  10, -20, -20,  10,  10,   5,
+                    0,   0,   0,   0,   0,   0,   0,   0,
+            },
+            { //knight
+                  -50, -40, -30, -30, -30, -30, -40, -50,
+                  -40, -20,   0,   0,   0,   0, -20, -40,
+                  -30,   0,  10,  15,  15,  10,   0, -30,
+                  -30,   5,  15,  20,  20,  15,   5, -30,
+                  -30,   0,  15,  20,  20,  15,   0, -30,
+                  -30,   5,  10,  15,  15,  10,   5, -30,
+                  -40, -20,   0,   5,   5,   0, -20, -40,
+                  -50, -40, -30, -30, -30, -30, -40, -50,
+            },
+            { //bishop
+                  -20, -10, -10, -10, -10, -10, -10, -20,
+                  -10,   0,   0,   0,   0,   0,   0, -10,
+                  -10,   0,   5,  10,  10,   5,   0, -10,
+                  -10,   5,   5,  10,  10,   5,   5, -10,
+                  -10,   0,  10,  10,  10,  10,   0, -10,
+                  -10,  10,  10,  10,  10,  10,  10, -10,
+                  -10,   5,   0,   0,   0,   0,   5, -10,
+                  -20, -10, -10, -10, -10, -10, -10, -20,
+            },
+            { //rook
+                    0,   0,   0,   0,   0,   0,   0,   0,
+                    5,  10,  10,  10,  10,  10,  10,   5,
+                   -5,   0,   0,   0,   0,   0,   0,  -5,
+                   -5,   0,   0,   0,   0,   0,   0,  -5,
+                   -5,   0,   0,   0,   0,   0,   0,  -5,
+                   -5,   0,   0,   0,   0,   0,   0,  -5,
+                   -5,   0,   0,   0,   0,   0,   0,  -5,
+                    0,   0,   0,   5,   5,   0,   0,   0,
+            },
+            { //queen
+                  -20, -10, -10,  -5,  -5, -10, -10, -20,
+                  -10,   0,   0,   0,   0,   0,   0, -10,
+                  -10,   0,   5,   5,   5,   5,   0, -10,
+                   -5,   0,   5,   5,   5,   5,   0,  -5,
+                    0,   0,   5,   5,   5,   5,   0,  -5,
+                  -10,   5,   5,   5,   5,   5,   0, -10,
+                  -10,   0,   5,   0,   0,   0,   0, -10,
+                  -20, -10, -10,  -5,  -5, -10, -10, -20,
+            },
+            { //king, stays behind its pawns
+                  -30, -40, -40, -50, -50, -40, -40, -30,
+                  -30, -40, -40, -50, -50, -40, -40, -30,
+                  -30, -40, -40, -50, -50, -40, -40, -30,
+                  -30, -40, -40, -50, -50, -40, -40, -30,
+                  -20, -30, -30, -40, -40, -30, -30, -20,
+                  -10, -20, -20, -20, -20, -20, -20, -10,
+                   20,  20,   0,   0,   0,   0,  20,  20,
+                   20,  30,  10,   0,   0,  10,  30,  20,
+            },
+    };
+
+    private static final int[] ENDGAME_PAWN_TABLE = { //the further a pawn is, the closer it is to promoting
+              0,   0,   0,   0,   0,   0,   0,   0,
+             80,  80,  80,  80,  80,  80,  80,  80,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             30,  30,  30,  30,  30,  30,  30,  30,
+             15,  15,  15,  15,  15,  15,  15,  15,
+              5,   5,   5,   5,   5,   5,   5,   5,
+              0,   0,   0,   0,   0,   0,   0,   0,
+              0,   0,   0,   0,   0,   0,   0,   0,
+    };
+    private static final int[] ENDGAME_KING_TABLE = { //the king takes part in the game and goes to the center
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10,   0,   0, -10, -20, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -30,   0,   0,   0,   0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+    //the other pieces want the same squares in the endgame
+    private static final int[][] ENDGAME_TABLES = {
+            ENDGAME_PAWN_TABLE, MIDDLEGAME_TABLES[1], MIDDLEGAME_TABLES[2], MIDDLEGAME_TABLES[3], MIDDLEGAME_TABLES[4],
+            ENDGAME_KING_TABLE
+    };
+
+    //the signed value of every piece on every square, indexed by Bitboards.index and then by square
+    static final int[][] MIDDLEGAME_SCORES = scores(PIECE_VALUES, MIDDLEGAME_TABLES);
+    static final int[][] ENDGAME_SCORES = scores(ENDGAME_PIECE_VALUES, ENDGAME_TABLES);
+    //the phase weight of every piece, indexed by Bitboards.index
+    static final int[] PHASES = new int[2 * Bitboards.PIECE_TYPES];
+    static {
+        for (PieceType type : PieceType.values()) {
+            PHASES[Bitboards.index(ChessColor.White, type)] = PHASE_WEIGHTS[type.ordinal()];
+            PHASES[Bitboards.index(ChessColor.Black, type)] = PHASE_WEIGHTS[type.ordinal()];
+        }
+    }
+
+    private PieceSquareTables() {}
+
+    private static int[][] scores(int[] pieceValues, int[][] tables) {
+        int[][] scores = new int[2 * Bitboards.PIECE_TYPES][Bitboards.SQUARES];
+        for (PieceType type : PieceType.values()) {
+            int[] table = tables[type.ordinal()];
+            for (int square = 0; square < Bitboards.SQUARES; square++) {
+                int x = square % Bitboards.CELL_AMOUNT;
+                int y = square / Bitboards.CELL_AMOUNT;
+                int whiteBonus = table[(Bitboards.CELL_AMOUNT - 1 - y) * Bitboards.CELL_AMOUNT + x];
+                int blackBonus = table[y * Bitboards.CELL_AMOUNT + x]; //mirrored: rank 8 is the first rank of black
+                scores[Bitboards.index(ChessColor.White, type)][square] = pieceValues[type.ordinal()] + whiteBonus;
+                scores[Bitboards.index(ChessColor.Black, type)][square] = -(pieceValues[type.ordinal()] + blackBonus);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Compute the middlegame score of the position in the handler from scratch.
+     */
+    public static int middlegameScore(Handler handler) {
+        return sum(handler, MIDDLEGAME_SCORES);
+    }
+
+    /**
+     * Compute the endgame score of the position in the handler from scratch.
+     */
+    public static int endgameScore(Handler handler) {
+        return sum(handler, ENDGAME_SCORES);
+    }
+
+    /**
+     * Compute the phase of the position in the handler from scratch.
+     */
+    public static int phase(Handler handler) {
+        int phase = 0;
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            Piece p = handler.getPiece(square);
+            if (p != null) {
+                phase += PHASES[Bitboards.index(p.getColor(), p.getType())];
+            }
+        }
+        return phase;
+    }
+
+    private static int sum(Handler handler, int[][] scores) {
+        int score = 0;
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            Piece p = handler.getPiece(square);
+            if (p != null) {
+                score += scores[Bitboards.index(p.getColor(), p.getType())][square];
+            }
+        }
+        return score;
+    }
+}
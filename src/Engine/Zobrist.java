@@ -0,0 +1,89 @@
+package Engine;
+
+import pieces.ChessColor;
+import pieces.Piece;
+import pieces.PieceType;
+
+import java.util.Random;
+
+/**
+ * Zobrist hashing: every piece on every square, the side to move, the castling rights and the en-passant file get a
+ * random 64 bit key. The hash of a position is the XOR of the keys of everything in it, so positions that are reached
+ * by different move orders get the same hash. Handler keeps its hash up to date with every move, see Handler.getHash.
+ * Class can not be instantiated.
+ */
+public final class Zobrist {
+
+    //indexed by Bitboards.index and then by square
+    static final long[][] PIECE_KEYS = new long[2 * Bitboards.PIECE_TYPES][Bitboards.SQUARES];
+    static final long BLACK_TO_MOVE_KEY;
+    static final long[] CASTLING_KEYS = new long[16]; //indexed by the castling bits of the handler
+    static final long[] EN_PASSANT_KEYS = new long[Bitboards.CELL_AMOUNT]; //indexed by file, 0 is the a-file
+    static {
+        Random r = new Random(1070372); //fixed seed, so hashes are the same on every run
+        for (long[] keys : PIECE_KEYS) {
+            for (int square = 0; square < keys.length; square++) {
+                keys[square] = r.nextLong();
+            }
+        }
+        BLACK_TO_MOVE_KEY = r.nextLong();
+        for (int i = 0; i < CASTLING_KEYS.length; i++) {
+            CASTLING_KEYS[i] = r.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+            EN_PASSANT_KEYS[i] = r.nextLong();
+        }
+    }
+
+    private Zobrist() {}
+
+    /**
+     * Compute the hash of the position in the handler from scratch.
+     */
+    public static long hash(Handler handler) {
+        long hash = 0;
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            Piece p = handler.getPiece(square);
+            if (p != null) {
+                hash ^= PIECE_KEYS[Bitboards.index(p.getColor(), p.getType())][square];
+            }
+        }
+        if (handler.getColorToMove() == ChessColor.Black) {
+            hash ^= BLACK_TO_MOVE_KEY;
+        }
+        hash ^= CASTLING_KEYS[handler.getCastlingRights()];
+        hash ^= enPassantKey(handler, handler.getEnPassantSquare(), handler.getColorToMove());
+        return hash;
+    }
+
+    /**
+     * Compute the hash of only the pawns in the handler from scratch.
+     */
+    public static long pawnHash(Handler handler) {
+        long hash = 0;
+        for (ChessColor c : ChessColor.values()) {
+            long pawns = handler.getBitboard(c, PieceType.Pawn);
+            while (pawns != 0) {
+                hash ^= PIECE_KEYS[Bitboards.index(c, PieceType.Pawn)][Bitboards.firstSquare(pawns)];
+                pawns &= pawns - 1;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * The key of the en-passent file. It is only part of the hash if a pawn can actually capture en-passent, otherwise
+     * the same position would have a different hash directly after a double pawn push.
+     * @param square the en-passent square, -1 if there is none
+     * @param capturer the color that could capture en-passent
+     * @return the key, or 0 if en-passent is not possible
+     */
+    static long enPassantKey(Handler handler, int square, ChessColor capturer) {
+        if (square == -1) {
+            return 0;
+        }
+        //the capturing pawns are on the squares a pawn of the other color on the en-passent square would attack
+        long capturers = Attacks.pawnAttacks(capturer.opposite(), square) & handler.getBitboard(capturer, PieceType.Pawn);
+        return capturers != 0 ? EN_PASSANT_KEYS[Bitboards.x(square) - 1] : 0;
+    }
+}
@@ -1,5 +1,6 @@
 package GUI;
 
+import Engine.Engine;
 import Engine.Handler;
 import Players.Move;
 import pieces.ChessColor;
@@ -69,7 +70,19 @@ public class ChessCanvas extends JPanel {
         //draw last move
         paintLastMove(g);
         //draw the pieces
-        handler.drawPieces(g);
+        drawPieces(g);
+    }
+
+    private void drawPieces(Graphics g) {
+        Piece[] pieces = handler.getPieces();
+        for (int square = 0; square < pieces.length; square++) {
+            if (pieces[square] != null) {
+                Point drawPoint = getPositionOnCanvas(ChessPosition.get(square));
+                //This is a square and the width is the same as the height, therefore, the code is correct and the warning suppressed.
+                //noinspection SuspiciousNameCombination
+                g.drawImage(PieceImages.get(pieces[square]), drawPoint.x, drawPoint.y, cellWidth, cellWidth, null);
+            }
+        }
     }
 
     public void setMousePointer(ChessPosition mousePointer) {
@@ -85,7 +98,7 @@ public class ChessCanvas extends JPanel {
         if (lastMove == null) return; //do nothing if there is no lastMove
         Color green = new Color(94, 224, 42);
         g.setColor(green);
-        Point drawPoint = lastMove.getStartPosition().getPositionOnCanvas();
+        Point drawPoint = getPositionOnCanvas(lastMove.getStartPosition());
         //This is a square
         //noinspection SuspiciousNameCombination
         g.fillRect(drawPoint.x, drawPoint.y, cellWidth, cellWidth);
@@ -94,7 +107,7 @@ public class ChessCanvas extends JPanel {
         g.drawRect(drawPoint.x, drawPoint.y, cellWidth, cellWidth);
 
         g.setColor(green);
-        drawPoint = lastMove.getEndPosition().getPositionOnCanvas();
+        drawPoint = getPositionOnCanvas(lastMove.getEndPosition());
         //noinspection SuspiciousNameCombination
         g.fillRect(drawPoint.x, drawPoint.y, cellWidth, cellWidth);
         g.setColor(Color.black);
@@ -132,7 +145,7 @@ public class ChessCanvas extends JPanel {
         if (mousePointer == null) return;
         int thickness = 5;
         Graphics2D g2 = (Graphics2D) g;
-        Point p = mousePointer.getPositionOnCanvas();
+        Point p = getPositionOnCanvas(mousePointer);
         g2.setColor(Color.BLUE);
         Stroke oldStroke = g2.getStroke();
         g2.setStroke(new BasicStroke(thickness));
@@ -154,7 +167,7 @@ public class ChessCanvas extends JPanel {
         } else {
             g.setColor(lightBrown);
         }
-        Point drawPosition = selectedPiecePosition.getPositionOnCanvas();
+        Point drawPosition = getPositionOnCanvas(selectedPiecePosition);
         g.fillRect(drawPosition.x, drawPosition.y, cellWidth, cellWidth);
 
         //draw the pointer again over this overlay
@@ -163,12 +176,12 @@ public class ChessCanvas extends JPanel {
         drawPossibleMoves(g);
 
         //draw piece on mouse location and transparent on original location
-        Image img = selected.getImg();
+        Image img = PieceImages.get(selected);
         float alpha = 0.3f; //transparency
         AlphaComposite ac = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha);
         Graphics2D g2d = (Graphics2D) g;
         g2d.setComposite(ac); //set transparency
-        Point drawPoint = this.selectedPiecePosition.getPositionOnCanvas();
+        Point drawPoint = getPositionOnCanvas(this.selectedPiecePosition);
         g2d.drawImage(img, drawPoint.x, drawPoint.y, cellWidth, cellWidth, null);
         //change transparency back before drawing the piece at the mousePosition
         alpha = 1;
@@ -186,14 +199,14 @@ public class ChessCanvas extends JPanel {
         if (whiteKing == null) throw new IllegalStateException("There is no white king.");
         if (handler.whiteKingChecked()) {
             g.setColor(Color.RED);
-            Point drawPoint = handler.getWhiteKingPosition().getPositionOnCanvas();
+            Point drawPoint = getPositionOnCanvas(handler.getWhiteKingPosition());
             g.fillRect(drawPoint.x, drawPoint.y, cellWidth, cellWidth);
         }
         King blackKing = handler.getBlackKing();
         if (blackKing == null) throw new IllegalStateException("There is no black king");
         if (handler.blackKingChecked()) {
             g.setColor(Color.RED);
-            Point drawPoint = handler.getBlackKingPosition().getPositionOnCanvas();
+            Point drawPoint = getPositionOnCanvas(handler.getBlackKingPosition());
             //This is a square
             //noinspection SuspiciousNameCombination
             g.fillRect(drawPoint.x, drawPoint.y, cellWidth, cellWidth);
@@ -206,7 +219,7 @@ public class ChessCanvas extends JPanel {
      */
     private void drawPossibleMoves(Graphics g) {
         if (selected == null) return;
-        Set<Move> moves = selected.getMovesWithCheck(selectedPiecePosition);
+        Set<Move> moves = selected.getMovesWithCheck(handler, selectedPiecePosition);
         moves.forEach(m -> drawDot(g, m.getEndPosition()));
     }
 
@@ -217,11 +230,34 @@ public class ChessCanvas extends JPanel {
      */
     private void drawDot(Graphics g, ChessPosition m) {
         int circleRadius = cellWidth / 7;
-        Point drawPoint = m.getPositionOnCanvas();
+        Point drawPoint = getPositionOnCanvas(m);
         g.setColor(Color.CYAN);
         g.fillOval(drawPoint.x + cellWidth/2 - circleRadius, drawPoint.y + cellWidth/2 - circleRadius, circleRadius*2, circleRadius*2);
     }
 
+    /**
+     * Get the relative position of the top left corner of a chessposition on the canvas
+     * @param position
+     * @return
+     */
+    public static Point getPositionOnCanvas(ChessPosition position) {
+        int graphicalX = (position.x - 1) * cellWidth;
+        int graphicalY = (Engine.CELL_AMOUNT - position.y) * cellWidth;
+        return new Point(graphicalX, graphicalY);
+    }
+
+    /**
+     * Get the chessposition under a point on the canvas
+     * @return the chessposition or null if the point is not on the board
+     */
+    public static ChessPosition getPositionAt(int graphicalX, int graphicalY) {
+        if (graphicalX < 0 || graphicalY < 0) return null;
+        int x = graphicalX / cellWidth + 1;
+        int y = Engine.CELL_AMOUNT - graphicalY / cellWidth;
+        if (!ChessPosition.isOnBoard(x, y)) return null;
+        return ChessPosition.get(x, y);
+    }
+
     public void setCellWidth(int cellWidth) {
         ChessCanvas.cellWidth = cellWidth;
     }
@@ -0,0 +1,54 @@
+package GUI;
+
+import pieces.ChessColor;
+import pieces.Piece;
+import pieces.PieceType;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * The images of the pieces. They are only loaded by the GUI, so the engine itself never touches AWT or the png files.
+ * Class can not be instantiated.
+ */
+public final class PieceImages {
+
+    //one image for every piece type and color, same order as Bitboards.index
+    private static final Image[] IMAGES = new Image[ChessColor.values().length * PieceType.values().length];
+    static {
+        for (ChessColor c : ChessColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                IMAGES[index(c, type)] = load(c, type);
+            }
+        }
+    }
+
+    private PieceImages() {}
+
+    public static Image get(Piece p) {
+        return IMAGES[index(p.getColor(), p.getType())];
+    }
+
+    private static int index(ChessColor c, PieceType type) {
+        return c.ordinal() * PieceType.values().length + type.ordinal();
+    }
+
+    /**
+     * Loads an image like wPawn.png or bQueen.png
+     */
+    private static Image load(ChessColor c, PieceType type) {
+        String name = (c == ChessColor.White ? "w" : "b") + type.name() + ".png";
+        try {
+            URL u = PieceImages.class.getClassLoader().getResource(name);
+            assert u != null;   //Assume the resource is there, if it is not, exceptions will occur, but that is alright,
+            //because when that happens, the application cannot start anyways.
+            return ImageIO.read(u);
+        } catch (IOException | IllegalArgumentException ex) {
+            System.err.println("Can't read " + type + " image");
+            ex.printStackTrace();
+            return null;
+        }
+    }
+}
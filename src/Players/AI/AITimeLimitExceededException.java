@@ -1,4 +0,0 @@
-package Players.AI;
-
-public class AITimeLimitExceededException extends Exception {
-}
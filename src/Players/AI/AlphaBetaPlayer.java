@@ -4,177 +4,137 @@ import Engine.*;
 import Players.Move;
 import Players.Player;
 import pieces.ChessColor;
-import pieces.Piece;
-
-import javax.sql.rowset.serial.SerialRef;
-import javax.swing.text.Position;
-import java.util.Set;
-
-import static java.lang.Integer.MAX_VALUE;
-import static java.lang.Integer.MIN_VALUE;
 
 public class AlphaBetaPlayer extends Player {
 
-    private int bestValue;
-    private final int maxInitialSearchDepth =2; //the initial search depth
-    private final long maxRunningTime = 5000; //5 seconds
-    private long startTime;
+    //the clock of the AI: 5 minutes for the game, plus 2 seconds for every move
+    private long remainingTime = 5 * 60 * 1000;
+    private long increment = 2000;
+    //kept for the whole game, so the transposition table can be used for the next moves
+    private final AlphaBetaSearch search;
+
+    //pondering: after a move, the position after the expected reply is searched while the opponent thinks
+    private boolean pondering = false;
+    private Thread ponderThread; //null if the player is not pondering
+    private TimeManager ponderTimeManager;
+    private long ponderHash; //the hash of the position that is pondered on
+    private volatile int ponderMove; //the result of the pondering
 
     public AlphaBetaPlayer(ChessColor color, Engine e) {
-        super(color, e);
+        this(color, e, AlphaBetaSearch.DEFAULT_HASH_SIZE, Runtime.getRuntime().availableProcessors());
     }
 
-    @Override
-    public void run() {
-        startTime = System.currentTimeMillis();
-        Move bestMove = null;
-        bestValue = 0;
-        Handler originalHandler = handler.clone();
-        ChessNode node = new ChessNode(handler.clone()); //root of the search tree
-        int maxSearchDepth = maxInitialSearchDepth;
-        try {
-            while(true) {
-                bestValue = alphaBeta(node, MIN_VALUE, MAX_VALUE, 0, maxSearchDepth);
-                //store the best move found uptill now
-                bestMove = node.getBestMove();
-                //print some results for debugging purposses
-                System.err.format(
-                        "%s: depth=%2d, best move=%5s, value=%d\n",
-                        this.getClass().getSimpleName(), maxSearchDepth, bestMove, bestValue
-                );
-                maxSearchDepth++; //increase the maximum search depth and try again.
-            }
-        } catch (AITimeLimitExceededException e) { /* just here to catch the exception and to stop if needed */ }
-
-        if (bestMove == null) { //no move found yet
-            System.err.println("Random move played");
-            Move temp = getRandomValidMove(handler); //set the move to be fetched to a random move
-            move = temp;
-        } else {
-            move = bestMove;    //set the move to be fetched to the best move uptil now
-        }
+    /**
+     * @param hashSize the size of the transposition table in megabytes
+     * @param threads the number of threads that search at the same time
+     */
+    public AlphaBetaPlayer(ChessColor color, Engine e, int hashSize, int threads) {
+        super(color, e);
+        search = new AlphaBetaSearch(hashSize);
+        search.setThreads(threads);
     }
 
-    /** Implementation of alphabeta that automatically chooses the white player
-     *  as maximizing player and the black player as minimizing player.
-     * @param node contains Handler and has field to which the best move can be assigned.
-     * @param alpha
-     * @param beta
-     * @param depth maximum recursion Depth
-     * @return the computed value of this node
-     * @throws AITimeLimitExceededException
-     **/
-    private int alphaBeta(ChessNode node, int alpha, int beta, int depth, int maxSearchDepth)
-            throws AITimeLimitExceededException {
-        if (this.getColor() == ChessColor.White) {  //if the player is white, do max, if it is black, do min
-            return alphaBetaMax(node, alpha, beta, depth, maxSearchDepth);
-        } else {
-            return alphaBetaMin(node, alpha, beta, depth, maxSearchDepth);
-        }
+    /**
+     * Set the clock of the player.
+     * @param time the time for the whole game in milliseconds
+     * @param increment the time added after every move in milliseconds
+     */
+    public void setTimeControl(long time, long increment) {
+        this.remainingTime = time;
+        this.increment = increment;
     }
 
-    private int alphaBetaMin(ChessNode node, int alpha, int beta, int depth, int maxSearchDepth)
-            throws AITimeLimitExceededException {
-        //Stop if maximum running time is exceeded.
-        if (System.currentTimeMillis()- startTime > maxRunningTime) {
-            throw new AITimeLimitExceededException();
-        }
-
-        Handler handler = node.getHandler();
+    /**
+     * Whether or not to search on the time of the opponent.
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+    }
 
-        //base cases
-        if (handler.whiteMated()) {
-            return MIN_VALUE;
-        }
-        if (handler.blackMated()) {
-            return MAX_VALUE;
+    @Override
+    public void run() {
+        long start = System.currentTimeMillis();
+        TimeManager timeManager = TimeManager.forClock(remainingTime, increment);
+        int bestMove = MoveEncoding.NONE;
+        if (ponderThread != null) {
+            bestMove = finishPondering(timeManager);
         }
-        if (depth >= maxSearchDepth) {
-            return PositionEvaluate.evaluate(handler);
+        //search on a copy, so the GUI can keep drawing the real handler
+        Handler position = handler.clone();
+        if (bestMove == MoveEncoding.NONE) {
+            bestMove = search.search(position, timeManager);
         }
+        remainingTime += increment - (System.currentTimeMillis() - start);
 
-        //The minimizing player is always the black player, so only the black player can play at this moment.
-        Set<Move> moves = handler.getMovesWithCheck(ChessColor.Black);
-
-        //while there are still moves to evaluate
-        for (Move m : moves) {
-            //get the state that corresponds to the move that we are going to evaluate
-            handler.execute(m, false); //changes the handler
-            ChessNode newNode = new ChessNode(handler.clone());  //make a new node with a copy of the handler
-            //check the child nodes and set the best move accordingly
-            int recursiveCall;
-            if (moves.size() == 1) {    //if there is only one move possible, do not count this to the recursion depth
-                recursiveCall = alphaBetaMax(newNode, alpha, beta, depth, maxSearchDepth);
-            } else {
-                recursiveCall = alphaBetaMax(newNode, alpha, beta, depth + 1, maxSearchDepth);
-            }
-            //undo the move for the next one. Changes the handler.
-            handler.undo(m);
-
-            //Checks if the value of the childnode is such that changes are necessary to alpha and beta
-            if (recursiveCall < beta) {
-                beta = recursiveCall;
-                if (depth == 0) {
-                    node.setBestMove(m);
-                }
-                if (beta <= alpha) {
-                    return alpha;
-                }
+        Move result;
+        if (bestMove == MoveEncoding.NONE) { //no move found yet
+            System.err.println("Random move played");
+            result = getRandomValidMove(handler); //set the move to be fetched to a random move
+        } else {
+            result = handler.toMove(bestMove);    //set the move to be fetched to the best move uptil now
+            if (pondering) {
+                position.makeMove(bestMove);
+                startPondering(position);
             }
         }
-        return beta;
+        move = result; //the engine can play the move from now on
     }
 
-    private int alphaBetaMax(ChessNode node, int alpha, int beta, int depth, int maxSearchDepth)
-            throws AITimeLimitExceededException {
-        //Stop if maximum running time is exceeded.
-        if (System.currentTimeMillis()- startTime > maxRunningTime) {
-            throw new AITimeLimitExceededException();
+    /**
+     * Start searching the position after the expected reply of the opponent in the background.
+     * @param position the position after the move of this player, the pondering is done on it
+     */
+    private synchronized void startPondering(Handler position) {
+        int expectedMove = search.getExpectedMove(position);
+        if (expectedMove == MoveEncoding.NONE) {
+            return;
         }
+        position.makeMove(expectedMove);
+        ponderHash = position.getHash();
+        ponderTimeManager = TimeManager.forPondering();
+        ponderMove = MoveEncoding.NONE;
+        ponderThread = new Thread(() -> ponderMove = search.search(position, ponderTimeManager), "ponder");
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
 
-        Handler handler = node.getHandler();
-
-        //base cases
-        if (handler.whiteMated()) {
-            return MIN_VALUE;
+    /**
+     * Stop pondering when it is the turn of this player again.
+     * @return on a ponder hit (the opponent played the expected move), the result of the pondering, which continues
+     *         with the limits of the clock. On a miss, the pondering is cancelled and MoveEncoding.NONE is returned.
+     */
+    private synchronized int finishPondering(TimeManager timeManager) {
+        if (ponderThread == null) { //cancelled by stopPondering in the meantime
+            return MoveEncoding.NONE;
         }
-        if (handler.blackMated()) {
-            return MAX_VALUE;
-        }
-        if (depth >= maxSearchDepth) {
-            return PositionEvaluate.evaluate(handler);
+        boolean hit = handler.getHash() == ponderHash;
+        if (hit) {
+            ponderTimeManager.ponderHit(timeManager);
+        } else {
+            ponderTimeManager.stop();
         }
+        joinPonderThread();
+        System.err.println(hit ? "Ponder hit" : "Ponder miss");
+        return hit ? ponderMove : MoveEncoding.NONE;
+    }
 
-        //get the possible moves, the maximizing player is always white
-        Set<Move> moves = handler.getMovesWithCheck(ChessColor.White);
-
-        //while there are still moves to evaluate
-        for (Move m : moves) {
-            //get the state that corresponds to the move that we are going to evaluate
-            handler.execute(m, false); //changes the handler
-            ChessNode newNode = new ChessNode(handler.clone());
-            //check the child nodes and set the best move accordingly
-            int recursiveCall;
-            if (moves.size() == 1) { //if there is only one possible move, do not count it to the recursion depth
-                recursiveCall = alphaBetaMin(newNode, alpha, beta, depth, maxSearchDepth);
-            } else {
-                recursiveCall = alphaBetaMin(newNode, alpha, beta, depth + 1, maxSearchDepth);
-            }
-            //undo the move again to make sure the state is ready for the next one
-            handler.undo(m);
-
-            //check if the value of the child node is such that changes are necessary to alpha or beta.
-            if (recursiveCall > alpha) {
-                alpha = recursiveCall;
-                if (depth == 0) {
-                    node.setBestMove(m);
-                }
-                if (beta <= alpha) {
-                    return beta;
-                }
-            }
+    /**
+     * Cancel the pondering, as the game ended or the position changed.
+     */
+    @Override
+    public synchronized void stopPondering() {
+        if (ponderThread != null) {
+            ponderTimeManager.stop();
+            joinPonderThread();
         }
-        return alpha;
     }
 
+    private void joinPonderThread() {
+        try {
+            ponderThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        ponderThread = null;
+    }
 }
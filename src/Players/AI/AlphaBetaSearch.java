@@ -0,0 +1,1143 @@
+package Players.AI;
+
+import Engine.*;
+import pieces.ChessColor;
+import pieces.Piece;
+import pieces.PieceType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The alpha beta search of the AI. It only needs a Handler, so it can run without a GUI (see ChessApp --search).
+ * Uses iterative deepening: the search depth is increased until the time is up (see TimeManager). Results are kept in a transposition
+ * table, which is kept between searches, so the next move can use the work of the previous ones.
+ * With more than one thread (setThreads), helper threads search the same position and share the transposition table.
+ * In fork join mode (setForkJoin), the tree is split over the threads instead (young brothers wait).
+ */
+public class AlphaBetaSearch {
+
+    //The value of a mate. A mate in more moves is worth a bit less (MATE_VALUE - distance from the root in plies), so the
+    //fastest mate is preferred. Every value fits in the 16 bits of the transposition table.
+    public static final int MATE_VALUE = 30000;
+    private static final int INFINITY = MATE_VALUE + 1;
+    private static final int PAWN_VALUE = PieceSquareTables.PIECE_VALUES[PieceType.Pawn.ordinal()];
+    private static final int DELTA_MARGIN = 2 * PAWN_VALUE; //what a position can gain besides the captured piece
+    private static final int ASPIRATION_WINDOW = PAWN_VALUE / 4; //the first window is this much around the previous value
+
+    private static final int NULL_MOVE_REDUCTION = 2; //the null move is searched this much less deep
+    private static final int NULL_MOVE_MIN_DEPTH = 3; //no null move closer to the leaves than this
+    private static final int LATE_MOVE_INDEX = 3; //the first moves are never reduced
+    private static final int LATE_MOVE_MIN_DEPTH = 3;
+    //the reduction for every remaining depth and index in the move list, growing with the logarithm of both
+    private static final int[][] LATE_MOVE_REDUCTIONS = new int[64][64];
+    static {
+        for (int depth = 1; depth < 64; depth++) {
+            for (int index = 1; index < 64; index++) {
+                LATE_MOVE_REDUCTIONS[depth][index] = (int) (0.75 + Math.log(depth) * Math.log(index) / 2.25);
+            }
+        }
+    }
+    public static final int DEFAULT_HASH_SIZE = 16; //megabytes
+    private static final int SPLIT_MIN_DEPTH = 4; //in fork join mode, nodes with at least this depth left are split
+
+    private int bestValue;
+    private final int maxInitialSearchDepth =2; //the initial search depth
+    private TimeManager timeManager = TimeManager.unlimited();
+    private static final int CLOCK_CHECK_INTERVAL = 2048; //the clock is read every this many nodes
+    private boolean logging = true; //print the result of every depth
+
+    private static final int MAX_PLY = 128; //the search never goes deeper than this
+    //one move list per distance from the root, allocated once so the search does not create any garbage
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final TranspositionTable transpositionTable;
+    private final MoveOrdering moveOrdering = new MoveOrdering(MAX_PLY);
+    private static final int PAWN_HASH_ENTRIES = 1 << 16; //1 megabyte
+    private final PawnHashTable pawnHashTable = new PawnHashTable(PAWN_HASH_ENTRIES); //one per thread, it has no locks
+    private static final int EVALUATION_CACHE_ENTRIES = 1 << 16; //512 kilobytes
+    private final EvaluationCache evaluationCache = new EvaluationCache(EVALUATION_CACHE_ENTRIES); //also one per thread
+
+    //how many nodes had a cutoff, and how many of those had it on the first move. The closer these are, the better
+    //the move ordering works.
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long nodes; //the number of positions visited in the last search, without the fork join tasks
+    //nodes until the clock is read again. Unlike nodes it is not reset when a task gives its search back, so short
+    //fork join tasks still read the clock.
+    private int clockCountdown = CLOCK_CHECK_INTERVAL;
+
+    private int threads = 1;
+    private AlphaBetaSearch[] helpers = new AlphaBetaSearch[0]; //the searches of the other threads
+    private volatile boolean stopped; //set when the time is up, or by the main thread to stop a helper
+    private int completedDepth; //the last depth that was searched completely
+    private int completedBestMove; //the best move of that depth
+
+    //fork join mode: the search that started the search owns the pool and the searches of the tasks. Every task takes
+    //an idle search for its subtree, as a thread that waits for a task can run another task in the meantime.
+    private boolean forkJoin = false;
+    private ForkJoinPool forkJoinPool; //null if the tree is not split
+    private AlphaBetaSearch owner = this;
+    private final ConcurrentLinkedQueue<AlphaBetaSearch> idleSearches = new ConcurrentLinkedQueue<>();
+    private final LongAdder taskNodes = new LongAdder(); //the nodes of all tasks in the last search
+    private SplitPoint splitPoint; //the split point of the task this search works for, null for the owner
+    //in a task, the best bound of the split point that the search of its move used. Only a value beyond it is the real
+    //value of the move, a fail low just returns the bound.
+    private int splitBound;
+
+    public AlphaBetaSearch() {
+        this(DEFAULT_HASH_SIZE);
+    }
+
+    /**
+     * @param hashSize the size of the transposition table in megabytes
+     */
+    public AlphaBetaSearch(int hashSize) {
+        this(new TranspositionTable(hashSize));
+    }
+
+    /**
+     * A search that uses an existing transposition table, which can be shared with other searches.
+     */
+    public AlphaBetaSearch(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+        for (int i = 0; i < MAX_PLY; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Search the best move for the color to move in the handler for a fixed time.
+     * @param handler the position to search. Moves are made on and undone from this handler, so the caller should
+     *                pass a copy if other threads use it.
+     * @param maxRunningTime the time in milliseconds after which the search stops
+     * @return the best move found, encoded as in MoveEncoding, or MoveEncoding.NONE if not even the first move of the
+     *         first depth was searched in time
+     */
+    public int search(Handler handler, long maxRunningTime) {
+        return search(handler, TimeManager.forMoveTime(maxRunningTime));
+    }
+
+    /**
+     * Search the best move for the color to move in the handler, as long as the time manager allows.
+     */
+    public int search(Handler handler, TimeManager timeManager) {
+        return search(handler, timeManager, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Search the best move for the color to move in the handler up to a fixed depth, without a time limit.
+     * Used for benchmarks, where every run has to do the same work.
+     */
+    public int searchToDepth(Handler handler, int depth) {
+        return search(handler, TimeManager.unlimited(), depth);
+    }
+
+    private int search(Handler handler, TimeManager timeManager, int lastSearchDepth) {
+        this.timeManager = timeManager;
+        timeManager.start();
+        stopped = false;
+        transpositionTable.newSearch();
+        taskNodes.reset();
+        for (AlphaBetaSearch idle : idleSearches) {
+            idle.moveOrdering.newSearch();
+        }
+        Thread[] helperThreads = startHelpers(handler, lastSearchDepth);
+        int firstDepth = Math.min(maxInitialSearchDepth, lastSearchDepth);
+        int bestMove;
+        if (forkJoinPool != null) { //the search has to run in the pool to be able to fork tasks
+            bestMove = forkJoinPool.invoke(ForkJoinTask.adapt(() -> iterativeDeepening(handler, firstDepth, lastSearchDepth)));
+        } else {
+            bestMove = iterativeDeepening(handler, firstDepth, lastSearchDepth);
+        }
+        //the main thread owns the time limit, the helpers stop when it stops
+        stopHelpers(helperThreads);
+        //a helper that completed a deeper search than the main thread has the better move
+        for (AlphaBetaSearch helper : helpers) {
+            if (helper.completedDepth > completedDepth && helper.completedBestMove != MoveEncoding.NONE) {
+                bestMove = helper.completedBestMove;
+                bestValue = helper.bestValue;
+                completedDepth = helper.completedDepth;
+            }
+        }
+        if (logging && threads > 1) {
+            System.err.format("%s: %d threads (%s), best move=%5s from depth %d, nodes=%d\n",
+                    this.getClass().getSimpleName(), threads, forkJoin ? "fork join" : "lazy SMP",
+                    MoveEncoding.toString(bestMove), completedDepth, getTotalNodes());
+        }
+        return bestMove;
+    }
+
+    /**
+     * Increase the search depth from firstDepth on until lastSearchDepth is done or the search is stopped.
+     * @return the best move of the last completed depth
+     */
+    private int iterativeDeepening(Handler handler, int firstDepth, int lastSearchDepth) {
+        int bestMove = MoveEncoding.NONE;
+        bestValue = 0;
+        completedDepth = 0;
+        completedBestMove = MoveEncoding.NONE;
+        ChessNode node = new ChessNode(handler); //root of the search tree
+        int maxSearchDepth = firstDepth;
+        int stableIterations = 0; //the number of iterations in a row with the same best move
+        moveOrdering.newSearch();
+        pawnHashTable.resetStatistics();
+        evaluationCache.resetStatistics();
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        nodes = 0;
+        //the search has to end even without a time limit, e.g. when pondering in a position with a forced mate
+        while(maxSearchDepth <= lastSearchDepth && maxSearchDepth < MAX_PLY) {
+            long iterationStart = timeManager.getElapsed();
+            int value = aspirationSearch(node, maxSearchDepth, maxSearchDepth > firstDepth);
+            if (isStopped()) {
+                //the root moves that were searched completely are still valid, so a move that was better than the
+                //best move of the previous depth is kept
+                if (node.getBestMove() != MoveEncoding.NONE) {
+                    bestMove = node.getBestMove();
+                }
+                if (logging) {
+                    System.err.format("%s: depth=%2d stopped, best move=%5s, time=%dms\n",
+                            this.getClass().getSimpleName(), maxSearchDepth, MoveEncoding.toString(bestMove),
+                            timeManager.getElapsed());
+                }
+                break;
+            }
+            bestValue = value;
+            stableIterations = node.getBestMove() == bestMove ? stableIterations + 1 : 0;
+            //store the best move found uptill now
+            bestMove = node.getBestMove();
+            completedDepth = maxSearchDepth;
+            completedBestMove = bestMove;
+            //print some results for debugging purposses
+            if (logging) {
+                long now = timeManager.getElapsed();
+                System.err.format(
+                        "%s: depth=%2d, best move=%5s, value=%d, time=%dms (total %dms), nodes=%d, " +
+                                "cutoffs on first move=%.1f%%, pawn hash hits=%.1f%%, evaluation cache hits=%.1f%%\n",
+                        this.getClass().getSimpleName(), maxSearchDepth, MoveEncoding.toString(bestMove), bestValue,
+                        now - iterationStart, now, nodes + taskNodes.sum(), getFirstMoveCutoffRate() * 100,
+                        pawnHashTable.getHitRate() * 100, evaluationCache.getHitRate() * 100
+                );
+            }
+            if (!timeManager.canStartIteration(stableIterations)) {
+                break;
+            }
+            maxSearchDepth++; //increase the maximum search depth and try again.
+        }
+        return bestMove;
+    }
+
+    /**
+     * Lazy SMP: every helper searches the same root on its own copy of the handler, without a time limit, until the
+     * main thread stops it. The helpers share nothing but the transposition table, through which they speed up each
+     * other and the main thread. Half of them start one depth deeper, so the threads do not all search the same
+     * depth at the same time.
+     */
+    private Thread[] startHelpers(Handler handler, int lastSearchDepth) {
+        Thread[] helperThreads = new Thread[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            AlphaBetaSearch helper = helpers[i];
+            Handler copy = new Handler(handler); //the handler is not thread safe, every thread gets its own
+            int firstDepth = Math.min(maxInitialSearchDepth + i % 2, lastSearchDepth);
+            helper.timeManager = TimeManager.unlimited();
+            helper.timeManager.start();
+            helper.stopped = false;
+            helperThreads[i] = new Thread(() -> helper.iterativeDeepening(copy, firstDepth, lastSearchDepth),
+                    "search helper " + (i + 1));
+            helperThreads[i].setDaemon(true);
+            helperThreads[i].start();
+        }
+        return helperThreads;
+    }
+
+    private void stopHelpers(Thread[] helperThreads) {
+        for (AlphaBetaSearch helper : helpers) {
+            helper.stopped = true;
+        }
+        for (Thread thread : helperThreads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Search the root with a small window around the value of the previous depth (aspiration window), which cuts off
+     * more than a full window. If the value falls outside the window, the window is widened on that side and the
+     * root is searched again.
+     * @param useWindow false for the first depth, when there is no previous value yet
+     */
+    private int aspirationSearch(ChessNode node, int maxSearchDepth, boolean useWindow) {
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        int delta = ASPIRATION_WINDOW;
+        if (useWindow && Math.abs(bestValue) < MATE_VALUE - MAX_PLY) {
+            alpha = bestValue - delta;
+            beta = bestValue + delta;
+        }
+        while (true) {
+            int value = alphaBeta(node, alpha, beta, 0, 0, maxSearchDepth);
+            if (isStopped()) {
+                return value;
+            }
+            if (value <= alpha && alpha > -INFINITY) { //failed low
+                delta *= 2;
+                alpha = Math.max(value - delta, -INFINITY);
+            } else if (value >= beta && beta < INFINITY) { //failed high
+                delta *= 2;
+                beta = Math.min(value + delta, INFINITY);
+            } else {
+                return value;
+            }
+            if (logging) {
+                System.err.format("%s: depth=%2d, value %d outside the window, searching again in [%d, %d]\n",
+                        this.getClass().getSimpleName(), maxSearchDepth, value, alpha, beta);
+            }
+        }
+    }
+
+    /**
+     * The move the search expects to be played in a position, the best move stored in the transposition table.
+     * After a search, this gives the expected reply to the best move, which can be searched while the opponent thinks.
+     * @return the move, or MoveEncoding.NONE if there is none or it is not legal (a different position with the same
+     *         entry)
+     */
+    public int getExpectedMove(Handler handler) {
+        long entry = transpositionTable.probe(handler.getHash());
+        int move = entry != 0 ? TranspositionTable.move(entry) : MoveEncoding.NONE;
+        if (move == MoveEncoding.NONE) {
+            return MoveEncoding.NONE;
+        }
+        MoveList moves = new MoveList();
+        handler.getMovesWithCheck(handler.getColorToMove(), moves);
+        return moves.contains(move) ? move : MoveEncoding.NONE;
+    }
+
+    /**
+     * The number of positions visited in the last search, including the quiescence search.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * The part of the cutoffs of the last search that happened on the first move that was tried.
+     */
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * The number of positions visited in the last search by all threads.
+     */
+    public long getTotalNodes() {
+        long total = nodes + taskNodes.sum();
+        for (AlphaBetaSearch helper : helpers) {
+            total += helper.nodes;
+        }
+        return total;
+    }
+
+    /**
+     * Set the number of threads that search at the same time. The helpers are kept between searches, so their
+     * move ordering is not lost.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+        createThreads();
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Choose how the threads search. By default (lazy SMP), every thread searches the whole tree and they only share
+     * the transposition table. In fork join mode, the moves of a node are divided over the threads once the first
+     * move is searched, so the threads always work on the same iteration.
+     */
+    public void setForkJoin(boolean forkJoin) {
+        this.forkJoin = forkJoin;
+        createThreads();
+    }
+
+    private void createThreads() {
+        AlphaBetaSearch[] newHelpers = new AlphaBetaSearch[forkJoin ? 0 : threads - 1];
+        for (int i = 0; i < newHelpers.length; i++) {
+            newHelpers[i] = i < helpers.length ? helpers[i] : new AlphaBetaSearch(transpositionTable);
+            newHelpers[i].logging = false;
+        }
+        helpers = newHelpers;
+        boolean splitTree = forkJoin && threads > 1;
+        if (forkJoinPool != null && (!splitTree || forkJoinPool.getParallelism() != threads)) {
+            shutdown();
+        }
+        if (splitTree && forkJoinPool == null) {
+            forkJoinPool = new ForkJoinPool(threads);
+        }
+    }
+
+    /**
+     * Stop the threads of the fork join pool. To be called when the search is not used anymore. The next search
+     * searches on one thread, until setThreads or setForkJoin is called again.
+     */
+    public void shutdown() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
+        idleSearches.clear();
+    }
+
+    /**
+     * Forget everything that was learned in earlier searches: the transposition table, and the move ordering, pawn
+     * hash table and evaluation cache of all threads. The next search runs as if it was the first.
+     */
+    public void clear() {
+        transpositionTable.clear();
+        clearThreadTables();
+        for (AlphaBetaSearch helper : helpers) {
+            helper.clearThreadTables();
+        }
+        for (AlphaBetaSearch search : idleSearches) {
+            search.clearThreadTables();
+        }
+    }
+
+    private void clearThreadTables() {
+        moveOrdering.clear();
+        pawnHashTable.clear();
+        evaluationCache.clear();
+    }
+
+    /**
+     * The pawn hash table of this thread, for its hit rate.
+     */
+    public PawnHashTable getPawnHashTable() {
+        return pawnHashTable;
+    }
+
+    /**
+     * The evaluation cache of this thread, for its hits and misses.
+     */
+    public EvaluationCache getEvaluationCache() {
+        return evaluationCache;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    public void setLogging(boolean logging) {
+        this.logging = logging;
+    }
+
+    /**
+     * The value of the last completed search depth, positive is good for white.
+     */
+    public int getBestValue() {
+        return bestValue;
+    }
+
+    /** Implementation of alphabeta that automatically chooses the white player
+     *  as maximizing player and the black player as minimizing player.
+     * @param node the root, contains Handler and has field to which the best move can be assigned.
+     *             The moves are executed on and undone from the handler of the root.
+     * @param alpha
+     * @param beta
+     * @param ply distance from the root
+     * @param depth recursion Depth, moves that are the only possible move are not counted
+     * @return the computed value of this node, meaningless if the search was stopped
+     **/
+    private int alphaBeta(ChessNode node, int alpha, int beta, int ply, int depth, int maxSearchDepth) {
+        if (node.getHandler().isWhiteToMove()) {  //if white is to move, do max, if it is black, do min
+            return alphaBetaMax(node, alpha, beta, ply, depth, maxSearchDepth, true);
+        } else {
+            return alphaBetaMin(node, alpha, beta, ply, depth, maxSearchDepth, true);
+        }
+    }
+
+    private int alphaBetaMin(ChessNode node, int alpha, int beta, int ply, int depth, int maxSearchDepth,
+                             boolean nullMoveAllowed) {
+        nodes++;
+        //Stop if maximum running time is exceeded or the search was stopped.
+        if (shouldStop()) {
+            return 0;
+        }
+
+        Handler handler = node.getHandler();
+        long hash = handler.getHash();
+
+        //a position that occurred before is a draw, going around in circles does not help either side
+        if (ply > 0 && handler.isRepetition()) {
+            return 0;
+        }
+
+        //use the result of an earlier search of this position if it was deep enough (not at the root, there the move
+        //itself is needed)
+        long entry = transpositionTable.probe(hash);
+        if (entry != 0 && ply > 0 && TranspositionTable.depth(entry) >= maxSearchDepth - depth) {
+            int value = valueFromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || bound == TranspositionTable.LOWER_BOUND && value >= beta
+                    || bound == TranspositionTable.UPPER_BOUND && value <= alpha) {
+                return value;
+            }
+        }
+
+        //null move pruning: if black is still at least at alpha after passing a move, with a smaller depth, a real move
+        //would be even better, so this position does not need to be searched.
+        boolean checked = handler.isChecked(ChessColor.Black);
+        if (nullMoveAllowed && !checked && ply > 0 && maxSearchDepth - depth >= NULL_MOVE_MIN_DEPTH
+                && evaluationCache.evaluate(handler, pawnHashTable) <= alpha) {
+            handler.makeNullMove();
+            int value = alphaBetaMax(node, alpha, alpha + 1, ply + 1, depth + 1 + NULL_MOVE_REDUCTION, maxSearchDepth, false);
+            handler.unmakeNullMove();
+            if (value <= alpha) {
+                //with only pawns, passing can be better than every move (zugzwang), so check it with a real search
+                if (hasPieces(handler, ChessColor.Black)
+                        || alphaBetaMin(node, alpha, alpha + 1, ply, depth + NULL_MOVE_REDUCTION, maxSearchDepth, false) <= alpha) {
+                    return alpha;
+                }
+            }
+        }
+
+        //The minimizing player is always the black player, so only the black player can play at this moment.
+        MoveList moves = moveLists[ply];
+        handler.getMovesWithCheck(ChessColor.Black, moves);
+
+        //base cases
+        if (moves.isEmpty()) { //black is mated or stalemated
+            return checked ? MATE_VALUE - ply : 0;
+        }
+        if (depth >= maxSearchDepth || ply == MAX_PLY - 1) {
+            return quiesceMin(node, alpha, beta, ply);
+        }
+        int hashMove = entry != 0 ? TranspositionTable.move(entry) : MoveEncoding.NONE;
+        moveOrdering.scoreMoves(handler, moves, ply, hashMove);
+
+        int originalBeta = beta;
+        int bestMove = MoveEncoding.NONE;
+        //while there are still moves to evaluate
+        for (int i = 0; i < moves.size(); i++) {
+            //the other tasks of the split point above may have found a better move for white in the meantime
+            alpha = raiseSplitAlpha(alpha, ply - 1);
+            if (beta <= alpha) {
+                return alpha;
+            }
+            int m;
+            int recursiveCall;
+            if (i == 1 && canSplit(depth, maxSearchDepth)) {
+                //young brothers wait: the eldest move is searched, now the others can be searched in parallel
+                SplitPoint split = searchSiblings(node, moves, i, alpha, beta, ply, depth, maxSearchDepth, checked, false);
+                m = split.bestMove;
+                recursiveCall = split.bestValue;
+                i = moves.size(); //all moves are searched
+            } else {
+                m = moveOrdering.pickNext(moves, i, ply);
+                //get the state that corresponds to the move that we are going to evaluate
+                handler.makeMove(m); //changes the handler
+                //check the child nodes and set the best move accordingly
+                //if there is only one move possible, do not count this to the recursion depth
+                int childDepth = moves.size() == 1 ? depth : depth + 1;
+                if (i == 0) {
+                    recursiveCall = alphaBetaMax(node, alpha, beta, ply + 1, childDepth, maxSearchDepth, true);
+                } else {
+                    recursiveCall = searchLaterMoveMin(node, m, i, alpha, beta, ply, depth, maxSearchDepth, checked);
+                }
+                //undo the move for the next one. Changes the handler.
+                handler.unmakeMove(m);
+            }
+            if (isStopped()) { //the value is not complete, so it can not be used
+                return 0;
+            }
+
+            //Checks if the value of the childnode is such that changes are necessary to alpha and beta
+            if (recursiveCall < beta) {
+                beta = recursiveCall;
+                bestMove = m;
+                if (ply == 0) {
+                    node.setBestMove(m);
+                }
+                if (beta <= alpha) {
+                    //black can do at least this well, so the value is at most beta
+                    moveOrdering.cutoff(handler, m, ply, maxSearchDepth - depth);
+                    countCutoff(i);
+                    store(hash, m, beta, ply, maxSearchDepth - depth, TranspositionTable.UPPER_BOUND);
+                    return alpha;
+                }
+            }
+        }
+        if (beta < originalBeta) {
+            store(hash, bestMove, beta, ply, maxSearchDepth - depth, TranspositionTable.EXACT);
+        } else { //no move was better for black than beta, so the value is at least beta
+            store(hash, MoveEncoding.NONE, beta, ply, maxSearchDepth - depth, TranspositionTable.LOWER_BOUND);
+        }
+        return beta;
+    }
+
+    private int alphaBetaMax(ChessNode node, int alpha, int beta, int ply, int depth, int maxSearchDepth,
+                             boolean nullMoveAllowed) {
+        nodes++;
+        //Stop if maximum running time is exceeded or the search was stopped.
+        if (shouldStop()) {
+            return 0;
+        }
+
+        Handler handler = node.getHandler();
+        long hash = handler.getHash();
+
+        //a position that occurred before is a draw, going around in circles does not help either side
+        if (ply > 0 && handler.isRepetition()) {
+            return 0;
+        }
+
+        //use the result of an earlier search of this position if it was deep enough (not at the root, there the move
+        //itself is needed)
+        long entry = transpositionTable.probe(hash);
+        if (entry != 0 && ply > 0 && TranspositionTable.depth(entry) >= maxSearchDepth - depth) {
+            int value = valueFromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || bound == TranspositionTable.LOWER_BOUND && value >= beta
+                    || bound == TranspositionTable.UPPER_BOUND && value <= alpha) {
+                return value;
+            }
+        }
+
+        //null move pruning: if white is still at least at beta after passing a move, with a smaller depth, a real move
+        //would be even better, so this position does not need to be searched.
+        boolean checked = handler.isChecked(ChessColor.White);
+        if (nullMoveAllowed && !checked && ply > 0 && maxSearchDepth - depth >= NULL_MOVE_MIN_DEPTH
+                && evaluationCache.evaluate(handler, pawnHashTable) >= beta) {
+            handler.makeNullMove();
+            int value = alphaBetaMin(node, beta - 1, beta, ply + 1, depth + 1 + NULL_MOVE_REDUCTION, maxSearchDepth, false);
+            handler.unmakeNullMove();
+            if (value >= beta) {
+                //with only pawns, passing can be better than every move (zugzwang), so check it with a real search
+                if (hasPieces(handler, ChessColor.White)
+                        || alphaBetaMax(node, beta - 1, beta, ply, depth + NULL_MOVE_REDUCTION, maxSearchDepth, false) >= beta) {
+                    return beta;
+                }
+            }
+        }
+
+        //get the possible moves, the maximizing player is always white
+        MoveList moves = moveLists[ply];
+        handler.getMovesWithCheck(ChessColor.White, moves);
+
+        //base cases
+        if (moves.isEmpty()) { //white is mated or stalemated
+            return checked ? -(MATE_VALUE - ply) : 0;
+        }
+        if (depth >= maxSearchDepth || ply == MAX_PLY - 1) {
+            return quiesceMax(node, alpha, beta, ply);
+        }
+        int hashMove = entry != 0 ? TranspositionTable.move(entry) : MoveEncoding.NONE;
+        moveOrdering.scoreMoves(handler, moves, ply, hashMove);
+
+        int originalAlpha = alpha;
+        int bestMove = MoveEncoding.NONE;
+        //while there are still moves to evaluate
+        for (int i = 0; i < moves.size(); i++) {
+            //the other tasks of the split point above may have found a better move for black in the meantime
+            beta = lowerSplitBeta(beta, ply - 1);
+            if (beta <= alpha) {
+                return beta;
+            }
+            int m;
+            int recursiveCall;
+            if (i == 1 && canSplit(depth, maxSearchDepth)) {
+                //young brothers wait: the eldest move is searched, now the others can be searched in parallel
+                SplitPoint split = searchSiblings(node, moves, i, alpha, beta, ply, depth, maxSearchDepth, checked, true);
+                m = split.bestMove;
+                recursiveCall = split.bestValue;
+                i = moves.size(); //all moves are searched
+            } else {
+                m = moveOrdering.pickNext(moves, i, ply);
+                //get the state that corresponds to the move that we are going to evaluate
+                handler.makeMove(m); //changes the handler
+                //check the child nodes and set the best move accordingly
+                //if there is only one possible move, do not count it to the recursion depth
+                int childDepth = moves.size() == 1 ? depth : depth + 1;
+                if (i == 0) {
+                    recursiveCall = alphaBetaMin(node, alpha, beta, ply + 1, childDepth, maxSearchDepth, true);
+                } else {
+                    recursiveCall = searchLaterMoveMax(node, m, i, alpha, beta, ply, depth, maxSearchDepth, checked);
+                }
+                //undo the move again to make sure the state is ready for the next one
+                handler.unmakeMove(m);
+            }
+            if (isStopped()) { //the value is not complete, so it can not be used
+                return 0;
+            }
+
+            //check if the value of the child node is such that changes are necessary to alpha or beta.
+            if (recursiveCall > alpha) {
+                alpha = recursiveCall;
+                bestMove = m;
+                if (ply == 0) {
+                    node.setBestMove(m);
+                }
+                if (beta <= alpha) {
+                    //white can do at least this well, so the value is at least alpha
+                    moveOrdering.cutoff(handler, m, ply, maxSearchDepth - depth);
+                    countCutoff(i);
+                    store(hash, m, alpha, ply, maxSearchDepth - depth, TranspositionTable.LOWER_BOUND);
+                    return beta;
+                }
+            }
+        }
+        if (alpha > originalAlpha) {
+            store(hash, bestMove, alpha, ply, maxSearchDepth - depth, TranspositionTable.EXACT);
+        } else { //no move was better for white than alpha, so the value is at most alpha
+            store(hash, MoveEncoding.NONE, alpha, ply, maxSearchDepth - depth, TranspositionTable.UPPER_BOUND);
+        }
+        return alpha;
+    }
+
+    /**
+     * Search a move of white that is not the first, the move is already made on the handler.
+     * Principal variation search: the first move is probably the best, so only prove that this move is not better
+     * with a null window, which is cheaper. Only if it is better, search it again properly. Late quiet moves are even
+     * searched less deep first (late move reduction).
+     */
+    private int searchLaterMoveMax(ChessNode node, int m, int moveIndex, int alpha, int beta, int ply, int depth,
+                                   int maxSearchDepth, boolean checked) {
+        int childDepth = depth + 1;
+        int reduction = lateMoveReduction(node.getHandler(), m, moveIndex, maxSearchDepth - depth, checked, ChessColor.Black);
+        int value = alphaBetaMin(node, alpha, alpha + 1, ply + 1, childDepth + reduction, maxSearchDepth, true);
+        alpha = raiseSplitAlpha(alpha, ply);
+        if (reduction > 0 && value > alpha) {
+            value = alphaBetaMin(node, alpha, alpha + 1, ply + 1, childDepth, maxSearchDepth, true);
+            alpha = raiseSplitAlpha(alpha, ply);
+        }
+        if (value > alpha && value < beta) {
+            value = alphaBetaMin(node, alpha, beta, ply + 1, childDepth, maxSearchDepth, true);
+        }
+        return value;
+    }
+
+    /**
+     * Search a move of black that is not the first, see searchLaterMoveMax.
+     */
+    private int searchLaterMoveMin(ChessNode node, int m, int moveIndex, int alpha, int beta, int ply, int depth,
+                                   int maxSearchDepth, boolean checked) {
+        int childDepth = depth + 1;
+        int reduction = lateMoveReduction(node.getHandler(), m, moveIndex, maxSearchDepth - depth, checked, ChessColor.White);
+        int value = alphaBetaMax(node, beta - 1, beta, ply + 1, childDepth + reduction, maxSearchDepth, true);
+        beta = lowerSplitBeta(beta, ply);
+        if (reduction > 0 && value < beta) {
+            value = alphaBetaMax(node, beta - 1, beta, ply + 1, childDepth, maxSearchDepth, true);
+            beta = lowerSplitBeta(beta, ply);
+        }
+        if (value < beta && value > alpha) {
+            value = alphaBetaMax(node, alpha, beta, ply + 1, childDepth, maxSearchDepth, true);
+        }
+        return value;
+    }
+
+    /**
+     * In a task of a split point of white, the alpha of its move raised to the bound of the split point, which the
+     * other tasks raise while this one runs. Does nothing in every other node.
+     * @param splitPly the ply of the node the move is made in
+     */
+    private int raiseSplitAlpha(int alpha, int splitPly) {
+        if (splitPoint == null || splitPoint.ply != splitPly || !splitPoint.maximizing) {
+            return alpha;
+        }
+        splitBound = Math.max(splitBound, splitPoint.bound);
+        return Math.max(alpha, splitBound);
+    }
+
+    /**
+     * In a task of a split point of black, the beta of its move lowered to the bound of the split point, see
+     * raiseSplitAlpha.
+     */
+    private int lowerSplitBeta(int beta, int splitPly) {
+        if (splitPoint == null || splitPoint.ply != splitPly || splitPoint.maximizing) {
+            return beta;
+        }
+        splitBound = Math.min(splitBound, splitPoint.bound);
+        return Math.min(beta, splitBound);
+    }
+
+    /**
+     * Whether the moves after the first of a node are searched in parallel: only in fork join mode and only far
+     * enough from the leaves, small subtrees are cheaper to search than to split.
+     */
+    private boolean canSplit(int depth, int maxSearchDepth) {
+        return owner.forkJoinPool != null && maxSearchDepth - depth >= SPLIT_MIN_DEPTH;
+    }
+
+    /**
+     * Search the moves from index first on in parallel, every move as a task in the fork join pool. Each task searches
+     * on its own copy of the handler. A task that finds a better move raises the bound for the tasks that start after
+     * it, and a cutoff cancels the other tasks.
+     * @param maximizing true if white is to move
+     * @return the split point, which holds the best move and value of the searched moves
+     */
+    private SplitPoint searchSiblings(ChessNode node, MoveList moves, int first, int alpha, int beta, int ply,
+                                      int depth, int maxSearchDepth, boolean checked, boolean maximizing) {
+        Handler handler = node.getHandler();
+        SplitPoint split = new SplitPoint(splitPoint, ply, maximizing, alpha, beta);
+        List<SiblingTask> tasks = new ArrayList<>(moves.size() - first);
+        for (int i = first; i < moves.size(); i++) {
+            int m = moveOrdering.pickNext(moves, i, ply);
+            tasks.add(new SiblingTask(owner, split, new Handler(handler), m, i, ply, depth, maxSearchDepth, checked));
+        }
+        //the results are incomplete if the time is up or a cutoff above this node cancelled the search, the caller
+        //checks that
+        ForkJoinTask.invokeAll(tasks);
+        checkClock();
+        return split;
+    }
+
+    /**
+     * Whether the search has to stop, to be called once for every node. The clock is only read every
+     * CLOCK_CHECK_INTERVAL nodes, as that is not free.
+     */
+    private boolean shouldStop() {
+        if (--clockCountdown <= 0) {
+            clockCountdown = CLOCK_CHECK_INTERVAL;
+            checkClock();
+        }
+        return isStopped();
+    }
+
+    /**
+     * Stop the search if the hard limit is reached.
+     */
+    private void checkClock() {
+        if (owner.timeManager.isHardLimitReached()) {
+            owner.stopped = true;
+        }
+    }
+
+    /**
+     * Whether the search was stopped: the time is up, the main thread stopped this helper or the split point that this
+     * search works for was cancelled. Once stopped, every node returns without a meaningful value, and nothing is
+     * stored.
+     */
+    private boolean isStopped() {
+        return owner.stopped || splitPoint != null && splitPoint.isCancelled();
+    }
+
+    /**
+     * How much less deep a move is searched first. Only quiet moves that come late in the move ordering are reduced,
+     * and not when a king is checked. Moves further down the list and further from the leaves are reduced more.
+     * @param handler the handler after the move
+     * @param opponent the color that moves next
+     * @param depth the remaining depth
+     */
+    private int lateMoveReduction(Handler handler, int move, int moveIndex, int depth, boolean checked,
+                                  ChessColor opponent) {
+        if (moveIndex < LATE_MOVE_INDEX || depth < LATE_MOVE_MIN_DEPTH || checked
+                || MoveEncoding.isCapture(move) || MoveEncoding.isPromotion(move) || handler.isChecked(opponent)) {
+            return 0;
+        }
+        //never reduce into the quiescence search
+        return Math.min(LATE_MOVE_REDUCTIONS[Math.min(depth, 63)][Math.min(moveIndex, 63)], depth - 2);
+    }
+
+    /**
+     * Whether or not a color has other pieces than pawns and the king.
+     */
+    private static boolean hasPieces(Handler handler, ChessColor c) {
+        return (handler.getBitboard(c, PieceType.Knight) | handler.getBitboard(c, PieceType.Bishop)
+                | handler.getBitboard(c, PieceType.Rook) | handler.getBitboard(c, PieceType.Queen)) != 0;
+    }
+
+    /**
+     * The quiescence search for white: at the end of the normal search, only captures and promotions are searched
+     * until the position is quiet, so the evaluation is never taken in the middle of an exchange.
+     * White does not have to capture, so the evaluation of the position itself (stand pat) is a lower bound.
+     * In check there is no stand pat and all moves are searched, because the check has to be answered.
+     */
+    private int quiesceMax(ChessNode node, int alpha, int beta, int ply) {
+        nodes++;
+        if (shouldStop()) {
+            return 0;
+        }
+        Handler handler = node.getHandler();
+        MoveList moves = moveLists[ply];
+        boolean checked = handler.isChecked(ChessColor.White);
+        int standPat = 0;
+        if (checked) {
+            handler.getMovesWithCheck(ChessColor.White, moves);
+            if (moves.isEmpty()) { //white is mated
+                return -(MATE_VALUE - ply);
+            }
+            if (ply == MAX_PLY - 1) { //too deep to follow the checks any further
+                int value = evaluationCache.evaluate(handler, pawnHashTable);
+                return value >= beta ? beta : value;
+            }
+        } else {
+            standPat = evaluationCache.evaluate(handler, pawnHashTable);
+            if (standPat >= beta || ply == MAX_PLY - 1) {
+                return standPat >= beta ? beta : standPat;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+            handler.getCapturesWithCheck(ChessColor.White, moves);
+        }
+        moveOrdering.scoreMoves(handler, moves, ply, MoveEncoding.NONE);
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moveOrdering.pickNext(moves, i, ply);
+            //delta pruning: skip captures that can not bring the value back to alpha, even with a margin
+            if (!checked && !MoveEncoding.isPromotion(m) && standPat + captureValue(handler, m) + DELTA_MARGIN <= alpha) {
+                continue;
+            }
+            handler.makeMove(m);
+            int value = quiesceMin(node, alpha, beta, ply + 1);
+            handler.unmakeMove(m);
+            if (isStopped()) {
+                return 0;
+            }
+            if (value > alpha) {
+                alpha = value;
+                if (beta <= alpha) {
+                    return beta;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * The quiescence search for black, see quiesceMax.
+     */
+    private int quiesceMin(ChessNode node, int alpha, int beta, int ply) {
+        nodes++;
+        if (shouldStop()) {
+            return 0;
+        }
+        Handler handler = node.getHandler();
+        MoveList moves = moveLists[ply];
+        boolean checked = handler.isChecked(ChessColor.Black);
+        int standPat = 0;
+        if (checked) {
+            handler.getMovesWithCheck(ChessColor.Black, moves);
+            if (moves.isEmpty()) { //black is mated
+                return MATE_VALUE - ply;
+            }
+            if (ply == MAX_PLY - 1) { //too deep to follow the checks any further
+                int value = evaluationCache.evaluate(handler, pawnHashTable);
+                return value <= alpha ? alpha : value;
+            }
+        } else {
+            standPat = evaluationCache.evaluate(handler, pawnHashTable);
+            if (standPat <= alpha || ply == MAX_PLY - 1) {
+                return standPat <= alpha ? alpha : standPat;
+            }
+            if (standPat < beta) {
+                beta = standPat;
+            }
+            handler.getCapturesWithCheck(ChessColor.Black, moves);
+        }
+        moveOrdering.scoreMoves(handler, moves, ply, MoveEncoding.NONE);
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moveOrdering.pickNext(moves, i, ply);
+            //delta pruning: skip captures that can not bring the value back to beta, even with a margin
+            if (!checked && !MoveEncoding.isPromotion(m) && standPat - captureValue(handler, m) - DELTA_MARGIN >= beta) {
+                continue;
+            }
+            handler.makeMove(m);
+            int value = quiesceMax(node, alpha, beta, ply + 1);
+            handler.unmakeMove(m);
+            if (isStopped()) {
+                return 0;
+            }
+            if (value < beta) {
+                beta = value;
+                if (beta <= alpha) {
+                    return alpha;
+                }
+            }
+        }
+        return beta;
+    }
+
+    /**
+     * The value of the piece a move captures, 0 if it is not a capture. En-passent always captures a pawn.
+     */
+    private static int captureValue(Handler handler, int move) {
+        if (!MoveEncoding.isCapture(move)) {
+            return 0;
+        }
+        Piece victim = handler.getPiece(MoveEncoding.to(move));
+        return victim == null ? PAWN_VALUE : PieceSquareTables.PIECE_VALUES[victim.getType().ordinal()];
+    }
+
+    private void countCutoff(int moveIndex) {
+        cutoffs++;
+        if (moveIndex == 0) {
+            firstMoveCutoffs++;
+        }
+    }
+
+    /**
+     * Store a value in the transposition table. Mate values are stored relative to the position instead of the root,
+     * because the same position can be found at another distance from the root.
+     */
+    private void store(long hash, int move, int value, int ply, int depth, int bound) {
+        if (value > MATE_VALUE - MAX_PLY) {
+            value += ply;
+        } else if (value < -(MATE_VALUE - MAX_PLY)) {
+            value -= ply;
+        }
+        transpositionTable.store(hash, move, value, depth, bound);
+    }
+
+    /**
+     * The opposite of what store does with mate values.
+     */
+    private int valueFromTable(int value, int ply) {
+        if (value > MATE_VALUE - MAX_PLY) {
+            return value - ply;
+        } else if (value < -(MATE_VALUE - MAX_PLY)) {
+            return value + ply;
+        }
+        return value;
+    }
+
+
+    private AlphaBetaSearch takeSearch() {
+        AlphaBetaSearch search = idleSearches.poll();
+        if (search == null) {
+            search = new AlphaBetaSearch(transpositionTable);
+            search.owner = this;
+            search.logging = false;
+        }
+        return search;
+    }
+
+    private void releaseSearch(AlphaBetaSearch search) {
+        taskNodes.add(search.nodes);
+        search.nodes = 0;
+        search.splitPoint = null;
+        idleSearches.add(search);
+    }
+
+    /**
+     * A node whose moves are searched in parallel. It collects the best result of the tasks.
+     */
+    private static class SplitPoint {
+        private final SplitPoint parent; //the split point above this one, null if there is none
+        private final int ply;
+        private final boolean maximizing;
+        private final int beta; //alpha for black
+        private volatile int bound; //alpha of the node for white, beta for black, raised by the tasks
+        private volatile boolean cancelled;
+        private int bestMove = MoveEncoding.NONE;
+        private int bestValue;
+        private int bestIndex;
+
+        SplitPoint(SplitPoint parent, int ply, boolean maximizing, int alpha, int beta) {
+            this.parent = parent;
+            this.ply = ply;
+            this.maximizing = maximizing;
+            this.bound = maximizing ? alpha : beta;
+            this.beta = maximizing ? beta : alpha;
+            this.bestValue = maximizing ? -INFINITY : INFINITY;
+        }
+
+        boolean isCancelled() {
+            for (SplitPoint s = this; s != null; s = s.parent) {
+                if (s.cancelled) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Add the result of a task. For equal values, the move that comes first in the move ordering is kept, so
+         * the result does not depend on which task finished first.
+         * @param usedBound the best bound the search of the move used. A value that is not better failed low: the
+         *                  search is fail hard, so it returns the bound, which is not the value of the move.
+         */
+        synchronized void update(int move, int index, int value, int usedBound) {
+            if (maximizing ? value <= usedBound : value >= usedBound) {
+                return;
+            }
+            boolean better = maximizing ? value > bestValue : value < bestValue;
+            if (better || value == bestValue && index < bestIndex) {
+                bestMove = move;
+                bestValue = value;
+                bestIndex = index;
+            }
+            if (maximizing ? value > bound : value < bound) {
+                bound = value;
+            }
+            if (maximizing ? value >= beta : value <= beta) { //cutoff, the other moves do not matter anymore
+                cancelled = true;
+            }
+        }
+    }
+
+    /**
+     * Searches one move of a split point in the fork join pool, on its own copy of the handler.
+     */
+    private static class SiblingTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AlphaBetaSearch owner;
+        private final SplitPoint split;
+        private final Handler handler;
+        private final int move;
+        private final int moveIndex;
+        private final int ply;
+        private final int depth;
+        private final int maxSearchDepth;
+        private final boolean checked;
+
+        SiblingTask(AlphaBetaSearch owner, SplitPoint split, Handler handler, int move, int moveIndex, int ply,
+                    int depth, int maxSearchDepth, boolean checked) {
+            this.owner = owner;
+            this.split = split;
+            this.handler = handler;
+            this.move = move;
+            this.moveIndex = moveIndex;
+            this.ply = ply;
+            this.depth = depth;
+            this.maxSearchDepth = maxSearchDepth;
+            this.checked = checked;
+        }
+
+        @Override
+        protected void compute() {
+            owner.checkClock();
+            if (owner.stopped || split.isCancelled()) {
+                return;
+            }
+            AlphaBetaSearch search = owner.takeSearch();
+            search.splitPoint = split;
+            handler.makeMove(move);
+            ChessNode node = new ChessNode(handler);
+            //the bound of the tasks that finished before this one started, the search raises it when others finish
+            search.splitBound = split.bound;
+            int value;
+            if (split.maximizing) {
+                value = search.searchLaterMoveMax(node, move, moveIndex, search.splitBound, split.beta, ply, depth,
+                        maxSearchDepth, checked);
+            } else {
+                value = search.searchLaterMoveMin(node, move, moveIndex, split.beta, search.splitBound, ply, depth,
+                        maxSearchDepth, checked);
+            }
+            if (!search.isStopped()) {
+                split.update(move, moveIndex, value, search.splitBound);
+            }
+            owner.releaseSearch(search);
+        }
+    }
+}
@@ -1,17 +1,17 @@
 package Players.AI;
 
 import Engine.Handler;
-import Players.Move;
+import Engine.MoveEncoding;
 
 /**
  * A class representing a node in the search tree for the alpha beta algorithm.
- * It contains the handler, which in turn holds all pieces. Adepting the pieces of the handler makes
+ * It contains the handler, which in turn holds all pieces. Executing and undoing moves on the handler makes
  * this a different node. The get/setBestMove methods are intended to story/retrieve the best move
- * as it has been computed
+ * as it has been computed, encoded as in MoveEncoding.
  */
 public class ChessNode {
     private final Handler handler;
-    private Move move;
+    private int move = MoveEncoding.NONE;
     public ChessNode(Handler h) {
         this.handler = h;
     }
@@ -20,10 +20,10 @@ public class ChessNode {
         return this.handler;
     }
 
-    public void setBestMove(Move m) {
+    public void setBestMove(int m) {
         this.move = m;
     }
-    public Move getBestMove() {
+    public int getBestMove() {
         return this.move;
     }
 }
@@ -0,0 +1,75 @@
+package Players.AI;
+
+import Engine.Handler;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the evaluation of positions by their hash, because the same positions are evaluated again in every
+ * iteration and through transpositions. Direct mapped: every hash has one place, a new position simply replaces the
+ * old one. Not thread safe, every search has its own cache.
+ */
+public class EvaluationCache {
+
+    private static final long KEY_MASK = 0xFFFFFFFF00000000L;
+
+    //the high 32 bits of the hash and the value in the low 32 bits. The low bits of the hash are the index. An entry
+    //of 0 is empty, a position that has a value of 0 and a hash with a high half of 0 is just never found.
+    private final long[] entries;
+    private final int mask;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param entries the number of entries, rounded down to a power of two
+     */
+    public EvaluationCache(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        this.entries = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * The value of the position in the handler, see PositionEvaluate.evaluate.
+     */
+    public int evaluate(Handler handler, PawnHashTable pawnHashTable) {
+        long hash = handler.getHash();
+        int i = (int) hash & mask;
+        long entry = entries[i];
+        if (entry != 0 && (entry & KEY_MASK) == (hash & KEY_MASK)) {
+            hits++;
+            return (int) entry;
+        }
+        misses++;
+        int value = PositionEvaluate.evaluate(handler, pawnHashTable);
+        entries[i] = hash & KEY_MASK | value & 0xFFFFFFFFL;
+        return value;
+    }
+
+    /**
+     * Forget all stored evaluations.
+     */
+    public void clear() {
+        Arrays.fill(entries, 0);
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * The part of the evaluations since the last reset that was found in the cache.
+     */
+    public double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    public void resetStatistics() {
+        hits = 0;
+        misses = 0;
+    }
+}
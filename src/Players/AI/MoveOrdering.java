@@ -0,0 +1,148 @@
+package Players.AI;
+
+import Engine.Handler;
+import Engine.MoveEncoding;
+import Engine.MoveList;
+import pieces.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Decides in which order the search tries the moves. Alpha beta cuts off more of the tree when the best move is
+ * tried first, so the moves that are most likely to be good go first:
+ * 1. the best move of an earlier search of the position (from the transposition table)
+ * 2. captures, the most valuable victim first and for the same victim the least valuable attacker first (MVV-LVA)
+ * 3. promotions
+ * 4. two killer moves per ply: quiet moves that caused a cutoff in another position at the same distance from the root
+ * 5. the other quiet moves, the ones that caused the most cutoffs in the whole search first (history heuristic)
+ */
+public class MoveOrdering {
+
+    private static final int HASH_MOVE_SCORE = 1000000;
+    private static final int CAPTURE_SCORE = 900000;
+    private static final int PROMOTION_SCORE = 800000;
+    private static final int KILLER_SCORE = 700000; //the first killer, the second gets one less
+    private static final int MAX_HISTORY_SCORE = 600000; //history scores are halved when they get above this
+
+    //the value of each piece type for MVV-LVA, indexed by the ordinal of the type
+    private static final int[] PIECE_ORDER_VALUES = {1, 3, 3, 5, 9, 100};
+
+    private final int[][] scores; //the score of every move in the move list of every ply
+    private final int[][] killers; //two killers per ply
+    private final int[][][] history = new int[2][64][64]; //indexed by color, from and to
+
+    public MoveOrdering(int maxPly) {
+        scores = new int[maxPly][MoveList.CAPACITY];
+        killers = new int[maxPly][2];
+    }
+
+    /**
+     * To be called at the start of every search. Killers are forgotten, history scores are made less important.
+     */
+    public void newSearch() {
+        for (int[] k : killers) {
+            k[0] = MoveEncoding.NONE;
+            k[1] = MoveEncoding.NONE;
+        }
+        ageHistory();
+    }
+
+    /**
+     * Forget the killers and the history scores, as if nothing was searched yet.
+     */
+    public void clear() {
+        for (int[] k : killers) {
+            k[0] = MoveEncoding.NONE;
+            k[1] = MoveEncoding.NONE;
+        }
+        for (int[][] colorHistory : history) {
+            for (int[] fromHistory : colorHistory) {
+                Arrays.fill(fromHistory, 0);
+            }
+        }
+    }
+
+    /**
+     * Give every move in the list a score. Has to be called before pickNext.
+     * @param hashMove the best move according to the transposition table, MoveEncoding.NONE if there is none
+     */
+    public void scoreMoves(Handler handler, MoveList moves, int ply, int hashMove) {
+        int[] plyScores = scores[ply];
+        int color = handler.getColorToMove().ordinal();
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moves.get(i);
+            int score;
+            if (m == hashMove) {
+                score = HASH_MOVE_SCORE;
+            } else if (MoveEncoding.isCapture(m)) {
+                //en-passent has no piece on the target square, but always captures a pawn
+                Piece victim = handler.getPiece(MoveEncoding.to(m));
+                int victimValue = victim == null ? PIECE_ORDER_VALUES[0] : PIECE_ORDER_VALUES[victim.getType().ordinal()];
+                int attackerValue = PIECE_ORDER_VALUES[handler.getPiece(MoveEncoding.from(m)).getType().ordinal()];
+                score = CAPTURE_SCORE + victimValue * 128 - attackerValue;
+            } else if (MoveEncoding.isPromotion(m)) {
+                score = PROMOTION_SCORE + MoveEncoding.promotionType(m).ordinal();
+            } else if (m == killers[ply][0]) {
+                score = KILLER_SCORE;
+            } else if (m == killers[ply][1]) {
+                score = KILLER_SCORE - 1;
+            } else {
+                score = history[color][MoveEncoding.from(m)][MoveEncoding.to(m)];
+            }
+            plyScores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the best of the moves from index on to index and returns it. Sorting the list step by step is cheaper
+     * than sorting everything, because after a cutoff the rest of the moves is not needed anymore.
+     */
+    public int pickNext(MoveList moves, int index, int ply) {
+        int[] plyScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = moves.get(best);
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            int score = plyScores[best];
+            plyScores[best] = plyScores[index];
+            plyScores[index] = score;
+        }
+        return moves.get(index);
+    }
+
+    /**
+     * Remember a move that caused a cutoff. Only quiet moves are remembered, captures are already tried early.
+     * @param handler the handler in the position before the move
+     * @param depth the remaining depth, a cutoff far from the leaves saves more and counts more
+     */
+    public void cutoff(Handler handler, int move, int ply, int depth) {
+        if (MoveEncoding.isCapture(move) || MoveEncoding.isPromotion(move)) {
+            return;
+        }
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] fromHistory = history[handler.getColorToMove().ordinal()][MoveEncoding.from(move)];
+        fromHistory[MoveEncoding.to(move)] += depth * depth;
+        if (fromHistory[MoveEncoding.to(move)] > MAX_HISTORY_SCORE) {
+            ageHistory();
+        }
+    }
+
+    private void ageHistory() {
+        for (int[][] colorHistory : history) {
+            for (int[] fromHistory : colorHistory) {
+                for (int to = 0; to < fromHistory.length; to++) {
+                    fromHistory[to] /= 2;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package Players.AI;
+
+import Engine.Handler;
+
+import java.io.PrintStream;
+
+/**
+ * Compares the two parallel search modes: every position of a fixed set is searched to a fixed depth with 1, 2, 4...
+ * threads, and the time is compared with the time of one thread. The search is cleared before every position, so the
+ * runs do not help each other.
+ */
+public class ParallelSpeedup {
+
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1bq1rk1/pp2nppp/2n1p3/3pP3/2pP4/P1P2N2/2P2PPP/R1BQKB1R b KQ - 1 9",
+    };
+
+    /**
+     * Print the time, nodes and speedup of both modes for every number of threads up to maxThreads.
+     */
+    public static void report(int depth, int maxThreads, PrintStream out) {
+        run(depth - 1, 1, false); //warm up, so the first run is not slower because of the compiler
+        long serialMillis = 0;
+        for (boolean forkJoin : new boolean[]{false, true}) {
+            for (int threads = forkJoin ? 2 : 1; threads <= maxThreads; threads *= 2) {
+                long[] result = run(depth, threads, forkJoin);
+                if (threads == 1) {
+                    serialMillis = result[0];
+                }
+                out.format("%-9s %2d threads: depth %d, %6dms, %10d nodes, %9d nodes/s, speedup %.2f%n",
+                        forkJoin ? "fork join" : "lazy SMP", threads, depth, result[0], result[1],
+                        result[1] * 1000 / Math.max(1, result[0]), (double) serialMillis / Math.max(1, result[0]));
+            }
+        }
+    }
+
+    /**
+     * Search all positions.
+     * @return the total time in milliseconds and the total number of nodes
+     */
+    private static long[] run(int depth, int threads, boolean forkJoin) {
+        long totalMillis = 0;
+        long totalNodes = 0;
+        AlphaBetaSearch search = new AlphaBetaSearch();
+        search.setLogging(false);
+        search.setForkJoin(forkJoin);
+        search.setThreads(threads);
+        for (String fen : POSITIONS) {
+            search.clear();
+            long start = System.nanoTime();
+            search.searchToDepth(new Handler(fen), depth);
+            totalMillis += (System.nanoTime() - start) / 1000000;
+            totalNodes += search.getTotalNodes();
+        }
+        search.shutdown();
+        return new long[]{totalMillis, totalNodes};
+    }
+}
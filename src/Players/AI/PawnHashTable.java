@@ -0,0 +1,88 @@
+package Players.AI;
+
+import Engine.Handler;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the pawn structure scores of the evaluation by the pawn hash (see Handler.getPawnHash). The pawns change
+ * in only a few moves, so almost every evaluation finds its pawn structure here and does not have to compute it.
+ * Not thread safe, every search has its own table.
+ */
+public class PawnHashTable {
+
+    private final long[] keys;
+    private final long[] scores; //the middlegame score in the high and the endgame score in the low 32 bits
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    /**
+     * @param entries the number of entries, rounded down to a power of two
+     */
+    public PawnHashTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        keys = new long[size];
+        scores = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * The pawn structure scores of the position in the handler, from the table or computed and stored.
+     * An empty entry has key 0, which is the key of a position without pawns, but then the stored scores of 0 are
+     * right anyway.
+     */
+    public long get(Handler handler) {
+        long key = handler.getPawnHash();
+        int i = (int) key & mask;
+        probes++;
+        if (keys[i] == key) {
+            hits++;
+            return scores[i];
+        }
+        long score = PositionEvaluate.pawnStructure(handler);
+        keys[i] = key;
+        scores[i] = score;
+        return score;
+    }
+
+    /**
+     * Forget all stored positions.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(scores, 0);
+    }
+
+    public static long pack(int middlegame, int endgame) {
+        return (long) middlegame << 32 | endgame & 0xFFFFFFFFL;
+    }
+
+    public static int middlegame(long scores) {
+        return (int) (scores >> 32);
+    }
+
+    public static int endgame(long scores) {
+        return (int) scores;
+    }
+
+    /**
+     * The part of the lookups since the last reset that found the position in the table.
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void resetStatistics() {
+        probes = 0;
+        hits = 0;
+    }
+}
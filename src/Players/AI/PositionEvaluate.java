@@ -1,42 +1,102 @@
 package Players.AI;
 
+import Engine.Bitboards;
 import Engine.Handler;
-import pieces.Piece;
+import Engine.PieceSquareTables;
+import pieces.ChessColor;
+import pieces.PieceType;
 
 /**
  * Class can not be instantiated. Only static methods are in here to evaluate a certain chessposition.
+ * Values are in centipawns, positive is good for white.
+ * The evaluation is tapered: there is a middlegame and an endgame score, which are mixed by the phase of the game
+ * (see PieceSquareTables), so the evaluation changes smoothly while pieces are traded.
  */
 public abstract class PositionEvaluate {
 
+    //pawn structure penalties and bonuses, for the middlegame and the endgame
+    private static final int DOUBLED_MIDDLEGAME = -10; //for every pawn more than one on a file
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10; //a pawn without pawns of its color on the files next to it
+    private static final int ISOLATED_ENDGAME = -15;
+    //a pawn without enemy pawns in front of it on its own and the next files, by the rank seen from its color
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 30, 50, 80, 120, 0};
+
+    private static final long[] ADJACENT_FILES = new long[Bitboards.CELL_AMOUNT]; //indexed by file, 0 is the a-file
+    private static final long[][] PASSED_MASKS = new long[2][Bitboards.SQUARES]; //the squares that stop a passed pawn
+    static {
+        for (int file = 0; file < Bitboards.CELL_AMOUNT; file++) {
+            if (file > 0) {
+                ADJACENT_FILES[file] |= Bitboards.FILE_A << (file - 1);
+            }
+            if (file < Bitboards.CELL_AMOUNT - 1) {
+                ADJACENT_FILES[file] |= Bitboards.FILE_A << (file + 1);
+            }
+        }
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            long files = Bitboards.file(square) | ADJACENT_FILES[square & 7];
+            int rank = square >>> 3;
+            long above = rank < Bitboards.CELL_AMOUNT - 1 ? -1L << (Bitboards.CELL_AMOUNT * (rank + 1)) : 0;
+            long below = (1L << (Bitboards.CELL_AMOUNT * rank)) - 1;
+            PASSED_MASKS[ChessColor.White.ordinal()][square] = files & above;
+            PASSED_MASKS[ChessColor.Black.ordinal()][square] = files & below;
+        }
+    }
+
     /**
      * A method that evaluates a given state. Uses all possible evaluation methods
      */
     public static int evaluate(Handler handler) {
-        return evaluate(handler, true);
+        return evaluate(handler, null);
     }
 
     /**
-     * Evaluates the position with only the methods that are true as input.
-     * Throws an illegalArgumentException when all arguments are false;
+     * Evaluate the position, with the pawn structure from a pawn hash table.
+     * @param pawnHashTable the table of the searching thread, or null to compute the pawn structure every time
      */
-    public static int evaluate(Handler handler, boolean countPieces) {
-        int value = 0;
-        if (countPieces) {
-            value += countPiecesValue(handler);
-        }
-        return value;
+    public static int evaluate(Handler handler, PawnHashTable pawnHashTable) {
+        //the material and the squares of the pieces are kept up to date by the handler with every move
+        long pawnScores = pawnHashTable != null ? pawnHashTable.get(handler) : pawnStructure(handler);
+        int middlegame = handler.getMiddlegameScore() + PawnHashTable.middlegame(pawnScores);
+        int endgame = handler.getEndgameScore() + PawnHashTable.endgame(pawnScores);
+        int phase = Math.min(handler.getPhase(), PieceSquareTables.MAX_PHASE);
+        return (middlegame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
     }
 
-    private static int countPiecesValue(Handler handler) {
-        Piece[][] pieces = handler.getPieces(); //no concurrentmodification issues because this method returns a copy
-        int totalValue = 0;
-        for (Piece[] row : pieces) {
-            for (Piece p : row) {
-                if (p != null) {
-                    totalValue += p.getPieceValue();
+    /**
+     * The doubled, isolated and passed pawn scores of both colors, packed as in PawnHashTable. Only depends on the
+     * pawns, so it can be cached by the pawn hash.
+     */
+    static long pawnStructure(Handler handler) {
+        int middlegame = 0;
+        int endgame = 0;
+        for (ChessColor c : ChessColor.values()) {
+            int sign = c == ChessColor.White ? 1 : -1;
+            long own = handler.getBitboard(c, PieceType.Pawn);
+            long enemy = handler.getBitboard(c.opposite(), PieceType.Pawn);
+            for (int file = 0; file < Bitboards.CELL_AMOUNT; file++) {
+                int onFile = Bitboards.count(own & Bitboards.FILE_A << file);
+                if (onFile > 1) {
+                    middlegame += sign * DOUBLED_MIDDLEGAME * (onFile - 1);
+                    endgame += sign * DOUBLED_ENDGAME * (onFile - 1);
+                }
+            }
+            long pawns = own;
+            while (pawns != 0) {
+                int square = Bitboards.firstSquare(pawns);
+                pawns &= pawns - 1;
+                if ((own & ADJACENT_FILES[square & 7]) == 0) {
+                    middlegame += sign * ISOLATED_MIDDLEGAME;
+                    endgame += sign * ISOLATED_ENDGAME;
+                }
+                if ((enemy & PASSED_MASKS[c.ordinal()][square]) == 0) {
+                    int rank = c == ChessColor.White ? square >>> 3 : 7 - (square >>> 3);
+                    middlegame += sign * PASSED_MIDDLEGAME[rank];
+                    endgame += sign * PASSED_ENDGAME[rank];
                 }
             }
         }
-        return totalValue;
+        return PawnHashTable.pack(middlegame, endgame);
     }
 }
@@ -0,0 +1,114 @@
+package Players.AI;
+
+/**
+ * Decides how long a search may take. There are two limits: after the soft limit no new iteration of the iterative
+ * deepening is started, after the hard limit the search stops in the middle of an iteration.
+ * With a game clock, the soft limit also depends on how stable the best move is: a best move that did not change for
+ * several iterations will probably not change anymore, a best move that just changed needs more time to be checked.
+ * The limits can be changed while the search runs, for pondering (see ponderHit and stop).
+ */
+public class TimeManager {
+
+    private static final int MOVES_TO_GO = 30; //the number of moves the remaining time is divided over
+    private static final long SAFETY_MARGIN = 50; //milliseconds kept on the clock for making the move
+    //the soft limit in tenths, by the number of iterations in a row with the same best move
+    private static final int[] STABILITY_FACTORS = {15, 10, 8, 7, 6, 5};
+    //pondering stops by itself after this many milliseconds, in case nobody stops it
+    private static final long MAX_PONDER_TIME = 10 * 60 * 1000;
+
+    private volatile long softLimit;
+    private volatile long hardLimit;
+    private volatile boolean stopEarly; //use the stability of the best move
+    private long startTime;
+
+    private TimeManager(long softLimit, long hardLimit, boolean stopEarly) {
+        this.softLimit = softLimit;
+        this.hardLimit = hardLimit;
+        this.stopEarly = stopEarly;
+    }
+
+    /**
+     * Search for a fixed time.
+     */
+    public static TimeManager forMoveTime(long millis) {
+        return new TimeManager(millis, millis, false);
+    }
+
+    /**
+     * Search until stopped, or until the last depth is done.
+     */
+    public static TimeManager unlimited() {
+        return forMoveTime(Long.MAX_VALUE);
+    }
+
+    /**
+     * Search on the time of the opponent, until ponderHit or stop is called, but at most MAX_PONDER_TIME.
+     */
+    public static TimeManager forPondering() {
+        return forMoveTime(MAX_PONDER_TIME);
+    }
+
+    /**
+     * The opponent played the expected move, from now on the limits of the clock apply. The limits count from the
+     * start of the pondering, so the time spent pondering is credited: the longer the opponent thought, the sooner
+     * the move is played.
+     */
+    public void ponderHit(TimeManager clock) {
+        stopEarly = clock.stopEarly;
+        softLimit = clock.softLimit;
+        hardLimit = clock.hardLimit;
+    }
+
+    /**
+     * Stop the search as soon as it reads the clock again.
+     */
+    public void stop() {
+        softLimit = 0;
+        hardLimit = 0;
+    }
+
+    /**
+     * Divide the time on the clock of the player over the rest of the game.
+     * @param remaining the time left on the clock in milliseconds
+     * @param increment the time added to the clock after every move in milliseconds
+     */
+    public static TimeManager forClock(long remaining, long increment) {
+        long available = Math.max(1, remaining - SAFETY_MARGIN);
+        //never use more than three quarters of the clock for one move, even with a big increment
+        long hardLimit = Math.max(1, available * 3 / 4);
+        long softLimit = Math.min(available / MOVES_TO_GO + increment * 3 / 4, hardLimit);
+        hardLimit = Math.min(softLimit * 4, hardLimit);
+        return new TimeManager(softLimit, hardLimit, true);
+    }
+
+    /**
+     * To be called when the search starts.
+     */
+    public void start() {
+        startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * The time since the start of the search in milliseconds.
+     */
+    public long getElapsed() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    public boolean isHardLimitReached() {
+        return getElapsed() >= hardLimit;
+    }
+
+    /**
+     * Whether there is time for another iteration.
+     * @param stableIterations the number of iterations in a row that found the same best move
+     */
+    public boolean canStartIteration(int stableIterations) {
+        long limit = softLimit;
+        if (stopEarly) {
+            int factor = STABILITY_FACTORS[Math.min(stableIterations, STABILITY_FACTORS.length - 1)];
+            limit = Math.min(softLimit / 10 * factor, hardLimit);
+        }
+        return getElapsed() < limit;
+    }
+}
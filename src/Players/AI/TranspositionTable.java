@@ -0,0 +1,114 @@
+package Players.AI;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the results of searched positions by their hash (see Handler.getHash), so a position that is reached again
+ * by another move order, in the next iteration or in the next move does not have to be searched again.
+ *
+ * Every entry is two longs: the data and the hash XOR the data. Several search threads can share the table without
+ * locks: if two threads write the same entry at the same time, the two longs no longer belong together and the entry
+ * simply does not match its hash anymore.
+ */
+public class TranspositionTable {
+
+    //the kind of score that is stored
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2; //the real score is at least the stored score
+    public static final int UPPER_BOUND = 3; //the real score is at most the stored score
+
+    //the layout of the data: move (20 bits), score (16 bits, signed), depth (8 bits), bound (2 bits), age (8 bits)
+    private static final int SCORE_SHIFT = 20;
+    private static final int DEPTH_SHIFT = 36;
+    private static final int BOUND_SHIFT = 44;
+    private static final int AGE_SHIFT = 46;
+
+    private static final int MAX_ENTRIES = 1 << 29; //8 gigabytes, the most a long array can hold
+
+    private final long[] entries; //two longs per entry: the hash XOR the data and the data
+    private final int mask;
+    private int age = 0; //increased every search, so entries of old searches are replaced first
+
+    /**
+     * @param megabytes the size of the table, rounded down to a power of two number of entries, at most 8 gigabytes
+     */
+    public TranspositionTable(int megabytes) {
+        //in long, as the size in bytes does not fit in an int from 2048 megabytes on
+        long requested = Long.highestOneBit(Math.max(1, megabytes * 1024L * 1024 / 16));
+        int entryCount = (int) Math.min(requested, MAX_ENTRIES);
+        entries = new long[entryCount * 2];
+        mask = entryCount - 1;
+    }
+
+    /**
+     * @return the data stored for the hash, or 0 if there is none. Use the static methods to read the data.
+     */
+    public long probe(long hash) {
+        int i = index(hash);
+        long data = entries[i + 1];
+        if ((entries[i] ^ data) == hash) {
+            return data;
+        }
+        return 0;
+    }
+
+    /**
+     * Store the result of a search. An entry of another position is only replaced if it is from an older search or
+     * was searched less deep. The same position is always replaced, but keeps its best move if there is no new one.
+     */
+    public void store(long hash, int move, int score, int depth, int bound) {
+        int i = index(hash);
+        long oldData = entries[i + 1];
+        if (oldData != 0) {
+            boolean samePosition = (entries[i] ^ oldData) == hash;
+            if (!samePosition && age(oldData) == (age & 0xFF) && depth(oldData) > depth) {
+                return;
+            }
+            if (samePosition && move == 0) {
+                move = move(oldData);
+            }
+        }
+        long data = move
+                | (long) (score & 0xFFFF) << SCORE_SHIFT
+                | (long) depth << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) (age & 0xFF) << AGE_SHIFT;
+        entries[i] = hash ^ data;
+        entries[i + 1] = data;
+    }
+
+    /**
+     * To be called at the start of every search.
+     */
+    public void newSearch() {
+        age++;
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0);
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> AGE_SHIFT) & 0xFF;
+    }
+
+    private int index(long hash) {
+        return (int) (hash & mask) * 2;
+    }
+}
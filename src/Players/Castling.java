@@ -1,18 +1,14 @@
 package Players;
 
 import pieces.ChessPosition;
-import pieces.King;
-import Engine.*;
-import pieces.Piece;
-import pieces.Rook;
 
 public class Castling extends Move {
 
     ChessPosition rookStart;
     ChessPosition rookEnd;
 
-    public Castling(ChessPosition kingStart, ChessPosition kingEnd, ChessPosition rookStart, ChessPosition rookEnd, Engine e, Move previousLastMove) {
-        super(kingStart, kingEnd, null, null, e, previousLastMove);
+    public Castling(ChessPosition kingStart, ChessPosition kingEnd, ChessPosition rookStart, ChessPosition rookEnd, int code, Move previousLastMove) {
+        super(kingStart, kingEnd, code, previousLastMove);
         this.rookEnd = rookEnd;
         this.rookStart = rookStart;
     }
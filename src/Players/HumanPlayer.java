@@ -37,7 +37,8 @@ public class HumanPlayer extends Player {
 
     @Override
     public void mousePressed(MouseEvent e) {
-        ChessPosition clicked = new ChessPosition((double)e.getX(), (double)e.getY(), canvas);
+        ChessPosition clicked = ChessCanvas.getPositionAt(e.getX(), e.getY());
+        if (clicked == null) return;    //not clicked on the board
         Piece clickedPiece = handler.getPiece(clicked);
         if (selected == null) { //nothing already selected
             if (clickedPiece == null) return;   //not clicked on a piece
@@ -47,7 +48,7 @@ public class HumanPlayer extends Player {
                 canvas.setSelectedPiece(selected, clicked);
             }
         } else {    //there is a piece selected
-            Set<Move> possibleMoves = selected.getMovesWithCheck(selectedPiecePosition);
+            Set<Move> possibleMoves = selected.getMovesWithCheck(handler, selectedPiecePosition);
             //There could be multiple possible moves in case of a pawn promotion
             Set<Move> optionalMoves = possibleMoves.stream().filter(m -> m.getEndPosition().equals(clicked)).collect(Collectors.toSet());
             //clicked on a possible move
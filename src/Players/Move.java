@@ -2,32 +2,23 @@ package Players;
 
 import pieces.*;
 import Engine.*;
-import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 /**
- * A class to execute a move. It also contains all information to undo a move.
+ * A move as seen by the GUI and the players. It wraps an encoded move (see MoveEncoding), which the handler uses to
+ * execute and undo it, and remembers the move before it so that moves can be undone one after another.
  */
 public class Move {
     ChessPosition end;    //new position
-    Piece capturedPiece; //can be null
-    ChessPosition capturedPiecePosition; //most of the time this will be the same as end, unless it is en-passent
-    Engine e;
-    int amountOfReversableMovesBeforeThisMove;
-
-    private boolean[] castlingsPossible = {true, true, true, true};
-
-    //values used for return
-    ChessPosition start; //starting position of the piece. Used in en-passent as well
+    ChessPosition start; //starting position of the piece
+    int code; //the encoded move
     Move previousLastMove;
 
     private boolean executed; //states whether or not this move has been executed or not
 
-    public Move(ChessPosition start, ChessPosition end, Piece capture, ChessPosition capturedPiecePosition, Engine e, Move previousLastMove) {
+    public Move(ChessPosition start, ChessPosition end, int code, Move previousLastMove) {
         this.end = end;
         this.start = start;
-        this.capturedPiece = capture;
-        this.capturedPiecePosition = capturedPiecePosition;
-        this.e = e;
+        this.code = code;
         this.previousLastMove = previousLastMove;
     }
 
@@ -39,6 +30,13 @@ public class Move {
         return this.start;
     }
 
+    /**
+     * The encoded move, see MoveEncoding
+     */
+    public int getCode() {
+        return this.code;
+    }
+
     public boolean isExecuted() {
         return this.executed;
     }
@@ -47,45 +45,12 @@ public class Move {
         this.executed = b;
     }
 
-    public Piece getCapturedPiece() {
-        return this.capturedPiece;
-    }
-
-    public ChessPosition getCapturedPiecePosition() {
-        return capturedPiecePosition;
-    }
-
     public Move getPreviousLastMove() {
         return this.previousLastMove;
     }
 
     @Override
     public String toString() {
-        return this.start + " " + this.end;
-    }
-
-    /**
-     * Sets the values of the castling options before this move.
-     * The order is as follows: whiteshort, whitelong, blackshort, blacklong.
-     */
-    public void setCastlings(boolean[] b) {
-        if (b.length != 4) throw new IllegalArgumentException("The length of the array is not correct.");
-        for (int i = 0; i < 4; i++) {
-            castlingsPossible[i] = b[i]; //castlingsPossible = b would result in only a pointer to the booleans. We want a copy.
-        }
-
-    }
-
-    public boolean[] getCastlingsPossible() {
-        return castlingsPossible;
+        return MoveEncoding.toString(code);
     }
-
-    public int getAmountOfReversableMovesBeforeThisMove() {
-        return this.amountOfReversableMovesBeforeThisMove;
-    }
-
-    public void setAmountOfReversableMovesBeforeThisMove(int x) {
-        this.amountOfReversableMovesBeforeThisMove = x;
-    }
-
 }
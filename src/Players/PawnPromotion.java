@@ -8,34 +8,14 @@ import pieces.*;
  */
 public class PawnPromotion extends Move {
 
-    Piece toPromoteTo;
-    Piece pawn;
-
-    public PawnPromotion(ChessPosition start, ChessPosition end, Piece capture, Engine e, Move previousLastMove, Piece pawn, Piece toPromoteTo) {
-        super(start, end, capture, end, e, previousLastMove);
-        this.toPromoteTo = toPromoteTo;
-        this.pawn = pawn;
+    public PawnPromotion(ChessPosition start, ChessPosition end, int code, Move previousLastMove) {
+        super(start, end, code, previousLastMove);
     }
 
+    /**
+     * The name of the piece type the pawn promotes to: Queen, Rook, Knight or Bishop
+     */
     public String getPromotionType() {
-        if (toPromoteTo instanceof Queen) {
-            return "Queen";
-        } else if (toPromoteTo instanceof Rook) {
-            return "Rook";
-        } else if (toPromoteTo instanceof Knight) {
-            return "Knight";
-        } else if (toPromoteTo instanceof Bishop) {
-            return "Bishop";
-        } else {
-            return "No valid promotion type";
-        }
-    }
-
-    public Piece getPawn() {
-        return this.pawn;
-    }
-
-    public Piece getPromotionPiece() {
-        return this.toPromoteTo;
+        return MoveEncoding.promotionType(code).name();
     }
 }
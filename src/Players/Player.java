@@ -54,6 +54,12 @@ public abstract class Player implements Runnable {
      */
     public void mousePressed(MouseEvent e) {}
 
+    /**
+     * To be overriden by players that think on the time of the opponent. Called when the game ends or the position
+     * is changed by other means than a move, after which the thinking is useless.
+     */
+    public void stopPondering() {}
+
     /**
      * Returns a random valid move given the current situation in the handler
      * @return A random move
@@ -3,4 +3,8 @@ package pieces;
 public enum ChessColor {
     Black,
     White;
+
+    public ChessColor opposite() {
+        return this == White ? Black : White;
+    }
 }
@@ -1,22 +1,35 @@
 package pieces;
 
-import java.awt.*;
-import GUI.ChessCanvas;
+import Engine.Bitboards;
+import Engine.MoveEncoding;
 import jdk.nashorn.internal.ir.annotations.Immutable;
 
 /**
- * A chessposition ranging from 1 to 8 with 1,1 in the bottom left
+ * A chessposition ranging from 1 to 8 with 1,1 in the bottom left.
+ * There are only 64 instances, one for every square, which are created once and fetched with get. Because of that,
+ * positions can be compared with == and no positions are created while playing. The x, y, square and color of every
+ * position are computed in advance.
+ * The mapping to pixels on the screen is done by the GUI, see ChessCanvas.
  */
 @Immutable
-public class ChessPosition extends Point {
+public final class ChessPosition {
 
-    ChessCanvas canvas;
-    private static final int CELL_AMOUNT = 8;
-    private ChessColor color;
+    private static final ChessPosition[] POSITIONS = new ChessPosition[Bitboards.SQUARES];
+    static {
+        for (int square = 0; square < POSITIONS.length; square++) {
+            POSITIONS[square] = new ChessPosition(square);
+        }
+    }
 
-    public ChessPosition(int x, int y, ChessCanvas canvas) {
-        super(x, y);
-        this.canvas = canvas;
+    public final int x;
+    public final int y;
+    private final int square;
+    private final ChessColor color;
+
+    private ChessPosition(int square) {
+        this.square = square;
+        this.x = Bitboards.x(square);
+        this.y = Bitboards.y(square);
         if ((x+y) % 2 == 0) {
             this.color = ChessColor.Black;
         } else {
@@ -24,22 +37,40 @@ public class ChessPosition extends Point {
         }
     }
 
-    public ChessPosition(double graphicalX, double graphicalY, ChessCanvas canvas) {
-        this((int)graphicalX / ChessCanvas.cellWidth + 1, CELL_AMOUNT - ((int)graphicalY / ChessCanvas.cellWidth), canvas);
+    /**
+     * The position with the given x and y, both from 1 to 8.
+     */
+    public static ChessPosition get(int x, int y) {
+        if (!isOnBoard(x, y)) {
+            throw new IllegalArgumentException("(" + x + "," + y + ") is not on the board");
+        }
+        return POSITIONS[Bitboards.square(x, y)];
+    }
+
+    /**
+     * The position of a square from 0 to 63, see Bitboards.
+     */
+    public static ChessPosition get(int square) {
+        return POSITIONS[square];
+    }
+
+    public static boolean isOnBoard(int x, int y) {
+        return x >= 1 && x <= Bitboards.CELL_AMOUNT && y >= 1 && y <= Bitboards.CELL_AMOUNT;
     }
 
     /**
-     * Get the relative position on the canvas
-     * @return
+     * The square from 0 to 63 used by the handler, see Bitboards.
      */
-    public Point getPositionOnCanvas() {
-        int cellWidth = ChessCanvas.cellWidth;
-        int graphicalX = (this.x-1) * cellWidth;
-        int graphicalY = (CELL_AMOUNT - this.y) * cellWidth;
-        return new Point(graphicalX, graphicalY);
+    public int getSquare() {
+        return this.square;
     }
 
     public ChessColor getColor() {
         return this.color;
     }
+
+    @Override
+    public String toString() {
+        return MoveEncoding.squareName(square);
+    }
 }
@@ -1,171 +1,69 @@
 package pieces;
 
-import Players.Move;
-
-import java.awt.*;
-import java.io.IOException;
-import java.net.URL;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.stream.Collectors;
-
 import Engine.*;
-import Players.PawnPromotion;
-
-import javax.imageio.ImageIO;
 
 public class Pawn extends Piece {
 
-    private static Image wimg;
-    private static Image bimg;
-
-    public Pawn(ChessColor c, Engine e, Handler h) {
-        super(c, e, h);
-        if (wimg == null && bimg == null) {
-            try {
-                URL u = getClass().getClassLoader().getResource("wPawn.png");
-                assert u != null;   //Assume the resource is there, if it is not, exceptions will occur, but that is alright,
-                //because when that happens, the application cannot start anyways.
-                wimg = ImageIO.read(u);
-                u = getClass().getClassLoader().getResource("bPawn.png");
-                assert u != null;
-                bimg = ImageIO.read(u);
-            } catch (IOException | IllegalArgumentException ex) {
-                System.err.println("Can't read Pawn image");
-                ex.printStackTrace();
-            }
-        }
-        pieceValue = 1;
-        if (c == ChessColor.Black) {
-            pieceValue = -1;
-        }
+    Pawn(ChessColor c) {
+        super(c);
     }
 
     @Override
-    public Image getImg() {
-        if (this.getColor() == ChessColor.White) {
-            return Pawn.wimg;
-        } else {
-            return Pawn.bimg;
-        }
+    public PieceType getType() {
+        return PieceType.Pawn;
     }
 
     @Override
-    public Set<Move> getMoves(ChessPosition position) {
-        Set<ChessPosition> possibleChessPositions = new HashSet<>();
-        Set<Move> possibleMoves = new HashSet<>();
-        int x = position.x;
-        int y = position.y;
+    public void getMoves(Handler handler, int square, long targets, MoveList moves) {
+        int y = Bitboards.y(square);
+        int forward; //the difference in square index of one step forward
+        int homeRow;
         if (this.getColor() == ChessColor.White) {
-            if (handler.getPiece(x, y + 1) == null) {
-                if (y < Engine.CELL_AMOUNT) {   //not the last row
-                    possibleChessPositions.add(new ChessPosition(x, y + 1, canvas));
-                }
-                if (y == 2 && handler.getPiece(x, y + 2) == null) { //if on home row and no blocking piece, add the double step
-                    possibleChessPositions.add(new ChessPosition(x, y + 2, canvas));
-                }
-            }
-            //captures
-            Piece p = handler.getPiece(x - 1, y + 1);
-            if (p != null) {
-                if (p.getColor() != this.getColor()) {
-                    possibleChessPositions.add(new ChessPosition(x - 1, y + 1, canvas));
-                }
-            }
-            p = handler.getPiece(x + 1, y + 1);
-            if (p != null) {
-                if (p.getColor() != this.getColor()) {
-                    possibleChessPositions.add(new ChessPosition(x + 1, y + 1, canvas));
-                }
-            }
-            //en-passent
-            if (y == 5) {
-                Move lastMove = handler.getLastMove();
-                if (handler.getPiece(x+1, y) instanceof Pawn) { //if it is a pawn
-                    if (lastMove.getEndPosition().equals(new ChessPosition(x + 1, y, canvas))) {
-                        if (lastMove.getStartPosition().equals(new ChessPosition(x + 1, y + 2, canvas))) { //and it did the last move
-                            possibleMoves.add(new Move(position, new ChessPosition(x + 1, y + 1, canvas), handler.getPiece(x + 1, y), lastMove.getEndPosition(), e, this.handler.getLastMove()));
-                        }
-                    }
-                }
-                if (handler.getPiece(x-1, y) instanceof Pawn) {
-                    if (lastMove.getEndPosition().equals(new ChessPosition(x - 1, y, canvas))) {
-                        if (lastMove.getStartPosition().equals(new ChessPosition(x - 1, y + 2, canvas))) {
-                            possibleMoves.add(new Move(position, new ChessPosition(x - 1, y + 1, canvas), handler.getPiece(x - 1, y), lastMove.getEndPosition(), e, this.handler.getLastMove()));
-                        }
-                    }
-                }
-            }
+            forward = Bitboards.CELL_AMOUNT;
+            homeRow = 2;
         } else {    //color is black
-            if (handler.getPiece(x, y-1) == null) {
-                if (y > 0) {    //not the last row
-                    possibleChessPositions.add(new ChessPosition(x, y-1, canvas));
-                }
-                if (y == 7 && handler.getPiece(x, y - 2) == null) { //if on home row and no blocking piece, add the double step
-                    possibleChessPositions.add(new ChessPosition(x, y - 2, canvas));
-                }
-            }
-            //captures
-            Piece p = handler.getPiece(x-1, y - 1);
-            if (p != null) {
-                if (p.getColor() != this.getColor()) {
-                    possibleChessPositions.add(new ChessPosition(x -1, y - 1, canvas));
-                }
-            }
-            p = handler.getPiece(x + 1, y - 1);
-            if (p != null) {
-                if (p.getColor() != this.getColor()) {
-                    possibleChessPositions.add(new ChessPosition(x + 1, y - 1, canvas));
-                }
+            forward = -Bitboards.CELL_AMOUNT;
+            homeRow = 7;
+        }
+        long occupied = handler.getOccupancy();
+        //a pawn is never on the last row, so one step forward is always on the board
+        int to = square + forward;
+        if ((occupied & Bitboards.bit(to)) == 0) {
+            if ((targets & Bitboards.bit(to)) != 0) {
+                addPawnMove(square, to, false, moves);
             }
-            //en-passent
-            if (y == 4) {
-                Move lastMove = handler.getLastMove();
-                if (handler.getPiece(x+1, y) instanceof Pawn) {
-                    if (lastMove.getEndPosition().equals(new ChessPosition(x+1, y, canvas))) {
-                        if (lastMove.getStartPosition().equals(new ChessPosition(x + 1, y - 2, canvas))) {
-                            possibleMoves.add(new Move(position, new ChessPosition(x + 1, y - 1, canvas), handler.getPiece(x + 1, y), lastMove.getEndPosition(), e, this.handler.getLastMove()));
-                        }
-                    }
-                }
-                if (handler.getPiece(x-1, y) instanceof Pawn) {
-                    if (lastMove.getEndPosition().equals(new ChessPosition(x - 1, y, canvas))) {
-                        if (lastMove.getStartPosition().equals(new ChessPosition(x - 1, y - 2, canvas))) {
-                            if (new ChessPosition(x - 1, y - 2, canvas).equals(lastMove.getStartPosition())) {
-                                possibleMoves.add(new Move(position, new ChessPosition(x - 1, y - 1, canvas), handler.getPiece(x - 1, y), lastMove.getEndPosition(), e, this.handler.getLastMove()));
-                            }
-                        }
-                    }
-                }
+            //if on home row and no blocking piece, add the double step
+            if (y == homeRow && (occupied & Bitboards.bit(to + forward)) == 0 && (targets & Bitboards.bit(to + forward)) != 0) {
+                moves.add(MoveEncoding.encode(square, to + forward, MoveEncoding.DOUBLE_PAWN_PUSH));
             }
         }
-        //pawn promotions:
-        Set<ChessPosition> promotions;
-        if (this.getColor() == ChessColor.White) {
-            promotions = possibleChessPositions.stream().filter(p -> p.y == 8).collect(Collectors.toSet());
-        } else { //black
-            promotions = possibleChessPositions.stream().filter(p -> p.y == 1).collect(Collectors.toSet());
+        //captures
+        long attacks = Attacks.pawnAttacks(this.getColor(), square);
+        long captures = attacks & occupied & targets;
+        while (captures != 0) {
+            addPawnMove(square, Bitboards.firstSquare(captures), true, moves);
+            captures &= captures - 1;
         }
-        possibleChessPositions.removeAll(promotions);
-        Set<Move> promotionMoves = new HashSet<>();
-        for (ChessPosition end : promotions) {
-            promotionMoves.addAll(getPromotions(end, position));
+        //en-passent. It is added regardless of the targets, because the captured pawn is not on the target square.
+        //The handler checks these moves separately.
+        int enPassantSquare = handler.getEnPassantSquare();
+        if (enPassantSquare != -1 && (attacks & Bitboards.bit(enPassantSquare)) != 0) {
+            moves.add(MoveEncoding.encode(square, enPassantSquare, MoveEncoding.EN_PASSANT | MoveEncoding.CAPTURE));
         }
-        possibleMoves.addAll(possibleChessPositions.stream().map(p -> new Move(position, p, handler.getPiece(p), p, e, this.handler.getLastMove())).collect(Collectors.toSet()));
-        possibleMoves.addAll(promotionMoves);
-        return possibleMoves;
     }
 
-    private Set<Move> getPromotions(ChessPosition end, ChessPosition start) {
-        Queen queen = new Queen(this.getColor(), e, handler);
-        Knight knight = new Knight(this.getColor(), e, handler);
-        Rook rook = new Rook(this.getColor(), e, handler);
-        Bishop bishop = new Bishop(this.getColor(), e, handler);
-        Set<Move> promotions = new HashSet<>();
-        promotions.add(new PawnPromotion(start, end, handler.getPiece(end), e, this.handler.getLastMove(), this, queen));
-        promotions.add(new PawnPromotion(start, end, handler.getPiece(end), e, this.handler.getLastMove(), this, knight));
-        promotions.add(new PawnPromotion(start, end, handler.getPiece(end), e, this.handler.getLastMove(), this, rook));
-        promotions.add(new PawnPromotion(start, end, handler.getPiece(end), e, this.handler.getLastMove(), this, bishop));
-        return promotions;
+    /**
+     * Adds a pawn move, or all four pawn promotions if the pawn reaches the last row.
+     */
+    private void addPawnMove(int from, int to, boolean capture, MoveList moves) {
+        int y = Bitboards.y(to);
+        if (y == 1 || y == Bitboards.CELL_AMOUNT) {
+            moves.add(MoveEncoding.encodePromotion(from, to, capture, PieceType.Queen));
+            moves.add(MoveEncoding.encodePromotion(from, to, capture, PieceType.Knight));
+            moves.add(MoveEncoding.encodePromotion(from, to, capture, PieceType.Rook));
+            moves.add(MoveEncoding.encodePromotion(from, to, capture, PieceType.Bishop));
+        } else {
+            moves.add(MoveEncoding.encode(from, to, capture ? MoveEncoding.CAPTURE : MoveEncoding.QUIET));
+        }
     }
 }
@@ -1,45 +1,48 @@
 package pieces;
 
-import javax.imageio.ImageIO;
-import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.net.URL;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
-import java.awt.*;
-import Engine.Engine;
+import Engine.Bitboards;
 import Engine.Handler;
-import GUI.ChessCanvas;
+import Engine.MoveEncoding;
+import Engine.MoveList;
 import Players.Move;
 import jdk.nashorn.internal.ir.annotations.Immutable;
 
 /**
- * A class representing a Piece. It contains information about its color, position and if it has already moved.
- * The images corresponding to the pieces are fetched from the resources once in the constructors of
- * the respective classes.
- * Because it is immutable, pieces do not know their own positions. This is stored in the handler.
+ * A class representing a Piece. It contains information about its color and type.
+ * Pieces have no images, those are only loaded by the GUI, see GUI.PieceImages.
+ * Because it is immutable, pieces do not know their own positions or the board they are on. The positions are
+ * stored in the handler, which is passed to every method that needs it. Therefore there is only one instance for
+ * every type and color, which can be fetched with get, and copying a handler does not copy any pieces.
  */
 @Immutable
-public abstract class Piece implements Cloneable {
+public abstract class Piece {
 
-    private ChessColor color;
-    protected Handler handler;
-    protected ChessCanvas canvas;
-    protected Engine e;
-    int pieceValue; //A value for the piece, used in calculating the value of a certain position
+    private final ChessColor color;
 
-    public Piece(ChessColor c, Engine e, Handler h) {
+    Piece(ChessColor c) {
         this.color = c;
-        this.e = e;
-        this.handler = h;
-        this.canvas = e.getCanvas();
     }
 
-    public int getPieceValue() {
-        return this.pieceValue;
+    /**
+     * The only instance of a piece of the given type and color.
+     */
+    public static Piece get(PieceType type, ChessColor c) {
+        return Instances.PIECES[c.ordinal()][type.ordinal()];
+    }
+
+    /**
+     * Holds the instances, so they are only created when get is first used and not while one of the subclasses is
+     * being loaded.
+     */
+    private static class Instances {
+        private static final Piece[][] PIECES = new Piece[2][];
+        static {
+            for (ChessColor c : ChessColor.values()) {
+                PIECES[c.ordinal()] = new Piece[]{new Pawn(c), new Knight(c), new Bishop(c), new Rook(c), new Queen(c), new King(c)};
+            }
+        }
     }
 
     public ChessColor getColor() {
@@ -47,51 +50,51 @@ public abstract class Piece implements Cloneable {
     }
 
     /**
-     * Returns all possible moves without checking if there exists a check if the move is played.
+     * The kind of piece, used by the handler to find the bitboard this piece belongs in.
+     */
+    public abstract PieceType getType();
+
+    /**
+     * Adds the possible moves of this piece on the given square (0 to 63) to the list, without checking if there
+     * exists a check if the move is played. Only moves to one of the target squares are added; the targets may not
+     * contain squares of pieces of the same color. Castlings are not included, see King.getCastlingMoves.
+     * The handler uses the targets to only generate legal moves, for example only the squares between the king and
+     * the checking piece.
      */
-    public abstract Set<Move> getMoves(ChessPosition position);
+    public abstract void getMoves(Handler handler, int square, long targets, MoveList moves);
 
     /**
      * Returns all possible moves while checking for check if the move would be played.
      */
-    public Set<Move> getMovesWithCheck(ChessPosition position) {
-        Set<Move> possibleMoves = getMoves(position);
+    public Set<Move> getMovesWithCheck(Handler handler, ChessPosition position) {
+        MoveList moves = new MoveList();
+        handler.getMovesWithCheck(this.getColor(), moves);
+        int square = position.getSquare();
         Set<Move> movesWithoutCheck = new HashSet<>();
-        King thisKing = handler.getKing(this.getColor());
-        for (Move m : possibleMoves) {
-            handler.execute(m, false);
-            if (!thisKing.isChecked(handler.getKingPosition(this.getColor()))) {
-                movesWithoutCheck.add(m);
+        for (int i = 0; i < moves.size(); i++) {
+            if (MoveEncoding.from(moves.get(i)) == square) {
+                movesWithoutCheck.add(handler.toMove(moves.get(i)));
             }
-            handler.undo(m);
         }
         return movesWithoutCheck;
     }
 
-    public void draw(Graphics g, ChessPosition position) {
-        int drawX = position.getPositionOnCanvas().x;
-        int drawY = position.getPositionOnCanvas().y;
-        //This is a square and the width is the same as the height, therefore, the code is correct and the warning suppressed.
-        //noinspection SuspiciousNameCombination
-        g.drawImage(getImg(), drawX, drawY, ChessCanvas.cellWidth, ChessCanvas.cellWidth, null);
+    /**
+     * Adds a move from the given square to every square in the bitboard of targets. Moves to a square with a piece on
+     * it are marked as captures.
+     */
+    protected void addMoves(Handler handler, int from, long targets, MoveList moves) {
+        long occupied = handler.getOccupancy();
+        while (targets != 0) {
+            int to = Bitboards.firstSquare(targets);
+            int flags = (occupied & Bitboards.bit(to)) != 0 ? MoveEncoding.CAPTURE : MoveEncoding.QUIET;
+            moves.add(MoveEncoding.encode(from, to, flags));
+            targets &= targets - 1; //remove the lowest bit
+        }
     }
 
-    public abstract Image getImg();
-
     @Override
     public String toString() {
         return this.getClass().getName();
     }
-
-    /**
-     * Return a new instance with a different handler.
-     */
-    public Piece clone(Handler h) {
-        try {
-            return this.getClass().getDeclaredConstructor(ChessColor.class, Engine.class, Handler.class).newInstance(this.color, this.e, h);
-        } catch (NoSuchMethodException | IllegalAccessException | InstantiationException | InvocationTargetException e1) {
-            e1.printStackTrace();
-        }
-        return null;
-    }
 }
@@ -0,0 +1,13 @@
+package pieces;
+
+/**
+ * The different kinds of pieces. The ordinal is used as an index in the bitboards of the handler.
+ */
+public enum PieceType {
+    Pawn,
+    Knight,
+    Bishop,
+    Rook,
+    Queen,
+    King;
+}